@@ -0,0 +1,102 @@
+package controller;
+
+import model.Release;
+import model.Ticket;
+import utils.MathUtils;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Proporzioni dei progetti di riferimento usate per il cold start. I ticket di ogni progetto vengono scaricati
+ * una sola volta per esecuzione: di quelli con AV si tengono le date di risoluzione ordinate e le somme prefisse
+ * delle proporzioni, così la media dei ticket risolti prima di una data è una ricerca binaria.
+ */
+final class ColdStartProportion {
+
+    private static final int MIN_CONSISTENT_TICKETS = 5;
+
+    private enum Projects {
+        AVRO,
+        SYNCOPE,
+        STORM,
+        ZOOKEEPER
+    }
+
+    private static ColdStartProportion instance;
+
+    private final List<ProjectProportions> projects = new ArrayList<>();
+
+    private ColdStartProportion() throws IOException {
+        for (Projects project : Projects.values()) {
+            //extract releases and tickets
+            JiraDataExtractor jiraExtractor = new JiraDataExtractor(project.toString().toUpperCase());
+            List<Release> releaseList = jiraExtractor.getReleases();
+            projects.add(new ProjectProportions(jiraExtractor.getFinalTickets(releaseList, false)));
+        }
+    }
+
+    static synchronized ColdStartProportion getInstance() throws IOException {
+        if (instance == null) {
+            instance = new ColdStartProportion();
+        }
+        return instance;
+    }
+
+    /**
+     * Mediana, tra i progetti con almeno 5 ticket con AV risolti prima della data, della loro proporzione media.
+     */
+    float estimate(LocalDate resolutionDate) {
+        List<Float> proportionListTemp = new ArrayList<>();
+        for (ProjectProportions project : projects) {
+            int count = project.countResolvedBefore(resolutionDate);
+            if (count >= MIN_CONSISTENT_TICKETS) {
+                proportionListTemp.add(project.prefixSums[count] / count);
+            }
+        }
+        // use cold start method, by computing the median among other projects
+        return MathUtils.median(proportionListTemp);
+    }
+
+    /**
+     * Ticket con AV di un progetto, nell'ordine per data di risoluzione della lista dei ticket.
+     */
+    private static final class ProjectProportions {
+        private final long[] resolutionEpochDays;
+        // prefixSums[k] è la somma delle proporzioni dei primi k ticket, accumulata in float come in Proportion
+        private final float[] prefixSums;
+
+        private ProjectProportions(List<Ticket> ticketsByResolutionDate) {
+            long[] days = new long[ticketsByResolutionDate.size()];
+            float[] sums = new float[ticketsByResolutionDate.size() + 1];
+            int count = 0;
+            for (Ticket ticket : ticketsByResolutionDate) {
+                if (ticket.getAv().isEmpty()) continue;
+                days[count] = ticket.getResolutionDate().toEpochDay();
+                sums[count + 1] = sums[count] + Proportion.computeProportion(ticket);
+                count++;
+            }
+            this.resolutionEpochDays = Arrays.copyOf(days, count);
+            this.prefixSums = Arrays.copyOf(sums, count + 1);
+        }
+
+        // Numero di ticket risolti strettamente prima della data
+        private int countResolvedBefore(LocalDate date) {
+            long epochDay = date.toEpochDay();
+            int low = 0;
+            int high = resolutionEpochDays.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (resolutionEpochDays[mid] < epochDay) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
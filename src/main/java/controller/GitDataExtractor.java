@@ -1,62 +1,84 @@
 package controller;
 
 import com.github.javaparser.ParseProblemException;
-import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.Range;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.ast.expr.*;
-import com.github.javaparser.ast.stmt.*;
-import model.JavaMethod;
+import model.CommitList;
+import model.CommitTable;
+import model.MethodTable;
+import model.MethodChange;
+import model.MethodMetrics;
 import model.Release;
+import model.SourceMethod;
 import model.Ticket;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffAlgorithm;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
 import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
-import utils.GitUtils;
-import utils.NestingDepthVisitor;
+import utils.JavaMethodScanner;
+import utils.JavaParsers;
+import utils.MethodFingerprint;
+import utils.MethodMetricsVisitor;
+import utils.MiningCache;
+import utils.ReleaseIndex;
+import utils.ShardedAccumulator;
+import utils.SourcePathFilter;
+import utils.StagedPipeline;
+import utils.TicketKeyMatcher;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.text.SimpleDateFormat;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class GitDataExtractor {
     private static final Logger LOGGER = Logger.getLogger(GitDataExtractor.class.getName());
-    private static String directoryTest = "/test/";
-    private static String javaExtension = ".java";
+    private static final byte[] EMPTY_CONTENT = new byte[0];
+    // Stesso algoritmo usato di default da DiffFormatter
+    private static final DiffAlgorithm DIFF_ALGORITHM = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
+    // Elementi in coda tra una fase e l'altra delle pipeline di mining
+    private static final int PIPELINE_QUEUE_CAPACITY = 64;
 
     private List<Ticket> ticketList;
     private List<Release> releaseList;
     private List<Release> fullReleaseList;
-    private List<RevCommit> commitList;
+    private final CommitTable commitList;
+    private ReleaseIndex releaseIndex;
     private final Git git;
     private final Repository repository;
-    private final NestingDepthVisitor nestingVisitor;
+    private int parallelism;
+    private final Map<ObjectId, List<MethodMetrics>> blobMetricsCache;
+    private int blobCacheHits;
+    private int blobCacheMisses;
+    private MiningCache miningCache;
+    private Path methodSpillFile;
+    private SourcePathFilter sourceFilter = SourcePathFilter.JAVA_SOURCES;
+    private final Map<ObjectId, List<MethodChange>> commitChangesStore; // Commit -> metodi modificati, calcolati una sola volta
 
     public GitDataExtractor(String projName, List<Release> allReleases, List<Ticket> ticketList) throws IOException {
-        // Configurazioni iniziali
-        ParserConfiguration parserConfiguration = new ParserConfiguration();
-        StaticJavaParser.setConfiguration(parserConfiguration);
-
         File repoDir = new File("/Users/silviaperelli/Desktop/" + projName.toLowerCase() + "_isw2");
         File gitDir = new File(repoDir, ".git");
 
@@ -77,8 +99,10 @@ public class GitDataExtractor {
         this.fullReleaseList.sort(Comparator.comparing(Release::getDate));
         this.releaseList = new ArrayList<>();
         this.ticketList = ticketList;
-        this.commitList = new ArrayList<>();
-        this.nestingVisitor = new NestingDepthVisitor();
+        this.commitList = new CommitTable();
+        this.parallelism = 1;
+        this.blobMetricsCache = new HashMap<>();
+        this.commitChangesStore = new HashMap<>();
     }
 
     // --- GETTERS E SETTERS ---
@@ -86,6 +110,40 @@ public class GitDataExtractor {
     public List<Release> getReleaseList() { return releaseList; }
     public List<Release> getFullReleaseList() { return fullReleaseList; }
     public void setTicketList(List<Ticket> ticketList) { this.ticketList = ticketList; }
+    public int getParallelism() { return parallelism; }
+
+    /**
+     * Imposta il numero di thread usati per l'estrazione dei metodi dalle release (1 = esecuzione sequenziale).
+     */
+    public void setParallelism(int parallelism) { this.parallelism = Math.max(1, parallelism); }
+    public int getBlobCacheHits() { return blobCacheHits; }
+    public int getBlobCacheMisses() { return blobCacheMisses; }
+
+    /**
+     * Collega una cache persistente dei risultati di mining: i blob e i commit già analizzati in un'esecuzione
+     * precedente vengono letti dalla cache, quelli nuovi vi vengono aggiunti.
+     */
+    public void setMiningCache(MiningCache miningCache) {
+        this.miningCache = miningCache;
+        if (miningCache != null) {
+            this.blobMetricsCache.putAll(miningCache.getBlobMetrics());
+        }
+    }
+
+    /**
+     * Se impostato, le metriche dei metodi vengono tenute in questo file mappato in memoria invece che nell'heap.
+     */
+    public void setMethodSpillFile(Path methodSpillFile) {
+        this.methodSpillFile = methodSpillFile;
+    }
+
+    /**
+     * Imposta i file sorgente da analizzare (default: file .java fuori dalle directory test); il filtro viene
+     * applicato direttamente da JGit alle visite degli alberi e ai diff.
+     */
+    public void setSourceFilter(SourcePathFilter sourceFilter) {
+        this.sourceFilter = sourceFilter;
+    }
 
     /**
      * Filtra la lista completa delle release per considerare solo la prima porzione (34%) per l'analisi.
@@ -107,65 +165,82 @@ public class GitDataExtractor {
 
     /**
      * Recupera tutti i commit dal repository e li assegna alle rispettive release.
+     * La storia viene visitata in streaming con un RevWalk: ogni commit diventa una riga della CommitTable
+     * (le chiavi dei ticket vengono cercate nel messaggio durante la visita) e il corpo del RevCommit
+     * viene rilasciato subito, così la memoria non cresce con la dimensione dei messaggi.
      */
-    public List<RevCommit> getAllCommitsAndAssignToReleases() throws GitAPIException, IOException {
+    public CommitTable getAllCommitsAndAssignToReleases() throws GitAPIException, IOException {
         if (this.ticketList == null) {
             LOGGER.warning("Ticket list non inizializzata.");
-            return Collections.emptyList();
+            return commitList;
         }
         if (!commitList.isEmpty()) {
             return commitList;
         }
 
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
-        Iterable<RevCommit> commitsIterable = git.log().all().call();
-        commitsIterable.forEach(commitList::add);
-        commitList.sort(Comparator.comparing(c -> c.getCommitterIdent().getWhen()));
-
-        for (RevCommit commit : commitList) {
-            LocalDate commitDate = LocalDate.parse(formatter.format(commit.getCommitterIdent().getWhen()));
-            LocalDate lowerBoundDate = LocalDate.parse(formatter.format(new Date(0)));
-
-            for (Release release : this.fullReleaseList) {
-                LocalDate releaseDate = release.getDate();
-                if (!commitDate.isBefore(lowerBoundDate) && !commitDate.isAfter(releaseDate)) {
-                    release.addCommit(commit);
-                }
-                lowerBoundDate = releaseDate;
+        TicketKeyMatcher keyMatcher = new TicketKeyMatcher(groupTicketsByKey().keySet());
+         try (RevWalk revWalk = new RevWalk(repository)) {
+            revWalk.sort(RevSort.COMMIT_TIME_DESC); // Stesso ordine di git.log()
+            for (Ref ref : repository.getRefDatabase().getRefs()) {
+                markStart(revWalk, ref.isPeeled() ? ref : repository.getRefDatabase().peel(ref));
+            }
+            for (RevCommit commit : revWalk) {
+                addToCommitTable(commit, keyMatcher);
+                commit.disposeBody();
             }
         }
+        commitList.sortByCommitTime();
+
+        assignCommitsToReleases();
 
         filterAndRenumberReleases();
+        this.releaseIndex = new ReleaseIndex(this.fullReleaseList);
         setReleaseListForAnalysis();
         return commitList;
     }
 
+    // Come git.log().all(): parte da ogni ref che punta (anche tramite tag annotati) a un commit
+    private static void markStart(RevWalk revWalk, Ref ref) throws IOException {
+        ObjectId objectId = ref.getPeeledObjectId() != null ? ref.getPeeledObjectId() : ref.getObjectId();
+        if (objectId == null) return;
+        try {
+            revWalk.markStart(revWalk.parseCommit(objectId));
+        } catch (IncorrectObjectTypeException e) {
+            // La ref non punta a un commit (es. tag di un blob)
+        }
+    }
+
+    private void addToCommitTable(RevCommit commit, TicketKeyMatcher keyMatcher) {
+        ObjectId parentTreeId = commit.getParentCount() > 0 ? commit.getParent(0).getTree().copy() : null;
+        commitList.add(commit.copy(), commit.getTree().copy(), parentTreeId, commit.getCommitTime(),
+                commit.getAuthorIdent().getName(), commit.getCommitterIdent().getName(),
+                keyMatcher.findKeys(commit.getFullMessage()));
+    }
+
     /**
      * Associa i commit ai ticket e rimuove i ticket che non hanno commit associati.
+     * Le chiavi dei ticket citate da ogni commit sono già state estratte durante la visita della storia.
      */
-    public List<RevCommit> filterCommitsOfIssues() {
-        List<RevCommit> filteredCommits = new ArrayList<>();
+    public CommitList filterCommitsOfIssues() {
+        CommitList filteredCommits = new CommitList();
         if (commitList.isEmpty()) {
             LOGGER.warning("Lista commit vuota. Chiamare prima getAllCommitsAndAssignToReleases().");
             return filteredCommits;
         }
 
-        for (RevCommit commit : commitList) {
-            for (Ticket ticket : this.ticketList) {
-                String commitMessage = commit.getFullMessage();
-                String ticketKey = ticket.getTicketID();
-                SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
-                LocalDate commitDate = LocalDate.parse(formatter.format(commit.getCommitterIdent().getWhen()));
-
-                if (ticketKey != null && !ticketKey.isEmpty() &&
-                        commitMessage.contains(ticketKey) &&
-                        ticket.getResolutionDate() != null && !commitDate.isAfter(ticket.getResolutionDate()) &&
-                        ticket.getCreationDate() != null && !commitDate.isBefore(ticket.getCreationDate())) {
+        Map<String, List<Ticket>> ticketsByKey = groupTicketsByKey();
+        for (int commit = 0; commit < commitList.size(); commit++) {
+            List<String> keysInMessage = commitList.getTicketKeys(commit);
+            if (keysInMessage.isEmpty()) continue;
 
-                    if (!filteredCommits.contains(commit)) {
-                        filteredCommits.add(commit);
+            LocalDate commitDate = commitList.getCommitDate(commit);
+            for (String ticketKey : keysInMessage) {
+                for (Ticket ticket : ticketsByKey.getOrDefault(ticketKey, Collections.emptyList())) {
+                    if (ticket.getResolutionDate() != null && !commitDate.isAfter(ticket.getResolutionDate()) &&
+                            ticket.getCreationDate() != null && !commitDate.isBefore(ticket.getCreationDate())) {
+                        if (filteredCommits.last() != commit) filteredCommits.add(commit);
+                        ticket.addCommit(commit);
                     }
-                    ticket.addCommit(commit);
                 }
             }
         }
@@ -173,174 +248,447 @@ public class GitDataExtractor {
         return filteredCommits;
     }
 
+    private Map<String, List<Ticket>> groupTicketsByKey() {
+        Map<String, List<Ticket>> ticketsByKey = new HashMap<>();
+        for (Ticket ticket : this.ticketList) {
+            String ticketKey = ticket.getTicketID();
+            if (ticketKey != null && !ticketKey.isEmpty()) {
+                ticketsByKey.computeIfAbsent(ticketKey, k -> new ArrayList<>()).add(ticket);
+            }
+        }
+        return ticketsByKey;
+    }
+
     /**
      * Estrae tutti i metodi Java dalle release selezionate e calcola le loro metriche.
+     * Le metriche statiche sono memorizzate per ObjectId del blob: un file invariato tra due release
+     * viene analizzato una sola volta. I blob da analizzare passano per una StagedPipeline: un thread li legge
+     * con un unico ObjectReader, parallelism worker li analizzano e il thread chiamante unisce i risultati nella
+     * cache nell'ordine della visita sequenziale, così il dataset prodotto è identico a quello su singolo thread.
+     * Le istanze metodo-release sono righe di una MethodTable, con le metriche su file se è impostato un file di spill.
      */
-    public List<JavaMethod> getMethodsFromReleases() throws IOException {
-        List<JavaMethod> allMethods = new ArrayList<>();
-        Map<String, JavaMethod> methodCache = new HashMap<>(); // Cache per FQN@ReleaseID -> JavaMethod
-
-        for (Release release : this.releaseList) {
-            List<RevCommit> releaseCommits = release.getCommitList();
-            if (releaseCommits.isEmpty()) continue;
-
-            releaseCommits.sort(Comparator.comparing(c -> c.getCommitterIdent().getWhen()));
-            RevCommit lastCommitOfRelease = releaseCommits.get(releaseCommits.size() - 1);
-
-            try (TreeWalk treeWalk = new TreeWalk(repository)) {
-                treeWalk.addTree(lastCommitOfRelease.getTree());
-                treeWalk.setRecursive(true);
-
-                while (treeWalk.next()) {
-                    if (treeWalk.getPathString().endsWith(javaExtension) && !treeWalk.getPathString().contains(directoryTest)) {
-                        processJavaFile(treeWalk, release, methodCache);
+    public MethodTable getMethodsFromReleases() throws IOException {
+        MethodTable allMethods = methodSpillFile != null
+                ? MethodTable.mapped(methodSpillFile, this.releaseList.stream().mapToInt(Release::getId).max().orElse(0))
+                : new MethodTable();
+        try {
+            ReleaseFileMerger merger = new ReleaseFileMerger(allMethods);
+            List<ReleaseFile> filesToAnalyze = new ArrayList<>(); // Un file per ogni blob non ancora analizzato
+            Set<ObjectId> blobsToAnalyze = new HashSet<>();
+
+            try (ObjectReader reader = repository.newObjectReader()) {
+                for (Release release : this.releaseList) {
+                    CommitList releaseCommits = release.getCommitList();
+                    if (releaseCommits.isEmpty()) continue;
+
+                    // I commit sono assegnati alle release in ordine di data: l'ultimo è il più recente
+                    int lastCommitOfRelease = releaseCommits.last();
+
+                    try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+                        treeWalk.addTree(commitList.getTreeId(lastCommitOfRelease));
+                        treeWalk.setRecursive(true);
+                        treeWalk.setFilter(sourceFilter.toTreeFilter());
+
+                        while (treeWalk.next()) {
+                            ReleaseFile releaseFile = new ReleaseFile(treeWalk.getPathString(), treeWalk.getObjectId(0), release);
+                            merger.releaseFiles.add(releaseFile);
+                            if (blobMetricsCache.containsKey(releaseFile.blobId) || !blobsToAnalyze.add(releaseFile.blobId)) {
+                                blobCacheHits++;
+                                continue;
+                            }
+                            blobCacheMisses++;
+                            filesToAnalyze.add(releaseFile);
+                        }
                     }
                 }
+
+                new StagedPipeline<ReleaseFile, byte[], List<MethodMetrics>>("Release blobs", parallelism, PIPELINE_QUEUE_CAPACITY).run(
+                        filesToAnalyze,
+                        releaseFile -> reader.open(releaseFile.blobId).getBytes(Integer.MAX_VALUE),
+                        (releaseFile, content) -> processJavaFile(releaseFile.filePath, content),
+                        (releaseFile, fileMetrics) -> {
+                            blobMetricsCache.put(releaseFile.blobId, fileMetrics);
+                            if (miningCache != null) {
+                                miningCache.putBlobMetrics(releaseFile.blobId, fileMetrics);
+                            }
+                            merger.mergeAvailable();
+                        });
             }
+            merger.mergeAvailable();
+
+            // Le righe seguono l'ordine di iterazione della cache, come la lista di metodi prodotta finora
+            allMethods.reorder(merger.methodCache.values().stream().mapToInt(Integer::intValue).toArray());
+            addCommits(allMethods, this.commitList);
+            calculateHasFixHistory(allMethods);
+            return allMethods;
+        } catch (IOException | RuntimeException e) {
+            // La tabella può essere mappata su file: non va lasciata aperta se il mining fallisce
+            try {
+                allMethods.close();
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
         }
-
-        allMethods.addAll(methodCache.values());
-        addCommits(allMethods, this.commitList);
-        calculateHasFixHistory(allMethods);
-        return allMethods;
     }
 
     /**
-     * Processa un singolo file Java per estrarre metodi e calcolare metriche statiche.
+     * Analizza il contenuto di un blob Java e calcola le metriche statiche di ogni metodo.
+     * Non modifica stato condiviso: può essere eseguito in parallelo su blob diversi.
      */
-    private void processJavaFile(TreeWalk treeWalk, Release release, Map<String, JavaMethod> methodCache) throws IOException {
-        String filePath = treeWalk.getPathString();
-        ObjectLoader loader = repository.open(treeWalk.getObjectId(0));
-        String fileContent;
-        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
-            loader.copyTo(output);
-            fileContent = output.toString(StandardCharsets.UTF_8.name());
-        }
-
+    private static List<MethodMetrics> processJavaFile(String filePath, byte[] content) {
+        List<MethodMetrics> fileMetrics = new ArrayList<>();
         try {
-            CompilationUnit cu = StaticJavaParser.parse(fileContent);
-            cu.findAll(MethodDeclaration.class).forEach(md -> {
-                String methodSignature = JavaMethod.getSignature(md);
-                String fqn = filePath + "/" + methodSignature;
-                String cacheKey = fqn + "@" + release.getId();
-
-                if (!methodCache.containsKey(cacheKey)) {
-                    JavaMethod javaMethod = new JavaMethod(fqn, release);
-
-                    int loc = calculateLOC(md);
-                    int numParams = md.getParameters().size();
-                    int numBranches = calculateNumBranches(md);
-                    int cyclomaticComplexity = numBranches + 1;
-                    int nestingDepth = calculateNestingDepth(md);
-                    int numLocalVars = calculateNumLocalVariables(md);
-
-                    javaMethod.setLoc(loc);
-                    javaMethod.setNumParameters(numParams);
-                    javaMethod.setNumBranches(numBranches);
-                    javaMethod.setNestingDepth(nestingDepth);
-                    javaMethod.setNumLocalVariables(numLocalVars);
-
-                    int codeSmells = calculateCodeSmells(md, cyclomaticComplexity, loc, nestingDepth, numParams);
-                    javaMethod.setNumCodeSmells(codeSmells);
-
-                    methodCache.put(cacheKey, javaMethod);
-                }
-            });
+            CompilationUnit cu = JavaParsers.parse(new String(content, StandardCharsets.UTF_8));
+            cu.findAll(MethodDeclaration.class).forEach(md -> fileMetrics.add(MethodMetricsVisitor.measure(md)));
         } catch (ParseProblemException | StackOverflowError e) {
             LOGGER.log(Level.SEVERE, "Errore di parsing per il file: {0}",filePath);
         }
+        return fileMetrics;
     }
 
     /**
-     * Analizza la storia dei commit per calcolare le metriche di processo (churn, autori, revisioni) per ogni metodo.
+     * Unisce i file delle release nella cache FQN@ReleaseID nell'ordine della visita, man mano che le metriche
+     * dei loro blob diventano disponibili.
      */
-    public void addCommits(List<JavaMethod> allMethods, List<RevCommit> allCommits) throws IOException {
-        Map<String, List<JavaMethod>> methodMap = allMethods.stream()
-                .collect(Collectors.groupingBy(JavaMethod::getFullyQualifiedName));
+    private final class ReleaseFileMerger {
+        private final MethodTable methods;
+        private final Map<String, Integer> methodCache = new HashMap<>(); // Cache per FQN@ReleaseID -> riga della tabella
+        private final List<ReleaseFile> releaseFiles = new ArrayList<>();
+        private int nextFile;
+
+        private ReleaseFileMerger(MethodTable methods) {
+            this.methods = methods;
+        }
+
+        private void mergeAvailable() {
+            while (nextFile < releaseFiles.size()) {
+                ReleaseFile releaseFile = releaseFiles.get(nextFile);
+                List<MethodMetrics> fileMetrics = blobMetricsCache.get(releaseFile.blobId);
+                if (fileMetrics == null) return;
+                mergeIntoCache(methods, methodCache, releaseFile, fileMetrics);
+                nextFile++;
+            }
+        }
+    }
 
-        List<RevCommit> sortedCommits = new ArrayList<>(allCommits);
-        sortedCommits.sort(Comparator.comparing(RevCommit::getCommitTime));
+    /**
+     * Crea le istanze metodo-release di un file e le inserisce nella cache FQN@ReleaseID;
+     * a parità di chiave vince il primo metodo incontrato.
+     */
+    private static void mergeIntoCache(MethodTable methods, Map<String, Integer> methodCache, ReleaseFile releaseFile, List<MethodMetrics> fileMetrics) {
+        for (MethodMetrics metrics : fileMetrics) {
+            String fqn = releaseFile.filePath + "/" + metrics.getSignature();
+            String cacheKey = fqn + "@" + releaseFile.release.getId();
+            if (!methodCache.containsKey(cacheKey)) {
+                int row = methods.addRow(fqn, releaseFile.release.getId());
+                metrics.applyTo(methods, row);
+                methodCache.put(cacheKey, row);
+            }
+        }
+    }
+
+    /**
+     * File Java presente nello snapshot di una release.
+     */
+    private static final class ReleaseFile {
+        private final String filePath;
+        private final ObjectId blobId;
+        private final Release release;
 
-        for (RevCommit commit : sortedCommits) {
-            if (commit.getParentCount() == 0) continue;
-            processCommitForMethodMetrics(commit, methodMap);
+        private ReleaseFile(String filePath, ObjectId blobId, Release release) {
+            this.filePath = filePath;
+            this.blobId = blobId;
+            this.release = release;
+        }
+    }
+
+    /**
+     * Analizza la storia dei commit per calcolare le metriche di processo (churn, autori, revisioni) per ogni metodo.
+     * I commit non ancora analizzati passano per una StagedPipeline: un thread calcola i diff e legge i blob,
+     * i worker individuano i metodi modificati e il thread chiamante smista le modifiche in ordine di data su
+     * parallelism shard per FQN. Ogni shard aggiorna da solo le righe dei propri FQN nell'ordine dei commit,
+     * quindi il risultato coincide con quello dell'esecuzione sequenziale.
+     */
+    public void addCommits(MethodTable allMethods, CommitTable allCommits) throws IOException {
+        int[][] rowsByFqn = indexMethodsByRelease(allMethods);
+        CommitList[] commitsByFqn = new CommitList[rowsByFqn.length]; // Commit che hanno modificato ogni FQN
+
+        // La tabella è già ordinata per data
+        List<CommitTask> commitTasks = new ArrayList<>();
+        for (int commit = 0; commit < allCommits.size(); commit++) {
+            if (!allCommits.hasParent(commit)) continue;
+            commitTasks.add(new CommitTask(commit, getKnownCommitChanges(commit)));
+        }
+
+        try (ObjectReader reader = repository.newObjectReader();
+             DiffFormatter diffFormatter = newDiffFormatter(reader);
+             ShardedAccumulator<MethodChangeEvent> accumulator = new ShardedAccumulator<>("Method metrics", parallelism,
+                     PIPELINE_QUEUE_CAPACITY, event -> applyMethodChange(allMethods, rowsByFqn, commitsByFqn, event))) {
+            new StagedPipeline<CommitTask, CommitContents, List<MethodChange>>("Commit diffs", parallelism, PIPELINE_QUEUE_CAPACITY).run(
+                    commitTasks,
+                    task -> task.knownChanges != null ? null : loadCommitContents(task.commit, reader, diffFormatter),
+                    (task, contents) -> {
+                        if (task.knownChanges != null) return task.knownChanges;
+                        // diff non calcolabile (già segnalato): il commit viene saltato
+                        return contents == null ? null : findChangedMethods(contents);
+                    },
+                    (task, changes) -> {
+                        if (changes == null) {
+                            changes = Collections.emptyList();
+                        } else if (task.knownChanges == null) {
+                            storeCommitChanges(task.commit, changes);
+                        }
+                        dispatchCommitChanges(allMethods, task.commit, changes, accumulator);
+                    });
+            accumulator.finish();
         }
 
         // Calcola NAuth e AvgChurn dopo aver processato tutti i commit.
-        calculateFinalMethodMetrics(allMethods);
+        calculateFinalMethodMetrics(allMethods, rowsByFqn, commitsByFqn, allCommits);
+    }
+
+    /**
+     * Invia allo shard del proprio FQN ogni metodo modificato dal commit.
+     */
+    private void dispatchCommitChanges(MethodTable methods, int commit, List<MethodChange> changes,
+                                       ShardedAccumulator<MethodChangeEvent> accumulator) throws IOException {
+        Release releaseOfCommit = getReleaseIndex().getReleaseOfCommit(commitList, commit);
+        if (releaseOfCommit == null) return;
+        for (MethodChange change : changes) {
+            int fqnId = methods.getFqnId(change.getFullyQualifiedName());
+            if (fqnId >= 0) {
+                accumulator.add(fqnId, new MethodChangeEvent(fqnId, commit, releaseOfCommit.getId(), change));
+            }
+        }
     }
 
     /**
-     * Processa un singolo commit per aggiornare le metriche dei metodi.
+     * Applica una modifica alle istanze del suo FQN; tocca solo stato di quell'FQN.
      */
-    private void processCommitForMethodMetrics(RevCommit commit, Map<String, List<JavaMethod>> methodMap) throws IOException {
-        RevCommit parent = commit.getParent(0);
+    private static void applyMethodChange(MethodTable methods, int[][] rowsByFqn, CommitList[] commitsByFqn, MethodChangeEvent event) {
+        int fqnId = event.fqnId;
+        if (updateMethodMetricsForCommit(methods, rowsByFqn[fqnId], event.releaseId, event.change)) {
+            if (commitsByFqn[fqnId] == null) commitsByFqn[fqnId] = new CommitList();
+            if (commitsByFqn[fqnId].last() != event.commit) commitsByFqn[fqnId].add(event.commit);
+        }
+    }
+
+    /**
+     * Modifica di un metodo da parte di un commit, con la release del commit.
+     */
+    private static final class MethodChangeEvent {
+        private final int fqnId;
+        private final int commit;
+        private final int releaseId;
+        private final MethodChange change;
+
+        private MethodChangeEvent(int fqnId, int commit, int releaseId, MethodChange change) {
+            this.fqnId = fqnId;
+            this.commit = commit;
+            this.releaseId = releaseId;
+            this.change = change;
+        }
+    }
 
+    /**
+     * Restituisce i metodi modificati da un commit rispetto al primo genitore. Il risultato viene calcolato una
+     * sola volta durante il calcolo delle metriche di processo e riletto da etichettatura e hasFixHistory;
+     * se il commit è già stato analizzato in un'esecuzione precedente viene letto dalla cache persistente.
+     */
+    private List<MethodChange> getCommitChanges(int commit) throws IOException {
+        List<MethodChange> knownChanges = getKnownCommitChanges(commit);
+        if (knownChanges != null) return knownChanges;
+
+        CommitContents contents;
+        try (ObjectReader reader = repository.newObjectReader(); DiffFormatter diffFormatter = newDiffFormatter(reader)) {
+            contents = loadCommitContents(commit, reader, diffFormatter);
+        }
+        if (contents == null) return new ArrayList<>();
+        List<MethodChange> changes = findChangedMethods(contents);
+        storeCommitChanges(commit, changes);
+        return changes;
+    }
+
+    // Metodi modificati già calcolati in questa esecuzione o letti dalla cache persistente, null se mancano
+    private List<MethodChange> getKnownCommitChanges(int commit) {
+        ObjectId commitId = commitList.getId(commit);
+        List<MethodChange> storedChanges = commitChangesStore.get(commitId);
+        if (storedChanges == null && miningCache != null) {
+            storedChanges = miningCache.getCommitChanges(commitId);
+            if (storedChanges != null) {
+                commitChangesStore.put(commitId, storedChanges);
+            }
+        }
+        return storedChanges;
+    }
+
+    private void storeCommitChanges(int commit, List<MethodChange> changes) throws IOException {
+        ObjectId commitId = commitList.getId(commit);
+        if (miningCache != null) {
+            miningCache.putCommitChanges(commitId, changes);
+        }
+        commitChangesStore.put(commitId, changes);
+    }
+
+    /**
+     * Calcola il diff del commit e legge le due versioni dei file coinvolti; null se il diff non è calcolabile.
+     */
+    private CommitContents loadCommitContents(int commit, ObjectReader reader, DiffFormatter diffFormatter) throws IOException {
         List<DiffEntry> diffs;
         try {
-            diffs = getDiffEntries(parent, commit);
+            diffs = diffFormatter.scan(commitList.getParentTreeId(commit), commitList.getTreeId(commit));
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Impossibile calcolare diff per commit {0} {1}", new Object[]{commit.getName(), e});
-            return;
+            LOGGER.log(Level.SEVERE, "Impossibile calcolare diff per commit {0} {1}", new Object[]{commitList.getName(commit), e});
+            return null;
         }
+        return new CommitContents(diffs, getFileContents(diffs, true, reader), getFileContents(diffs, false, reader));
+    }
 
-        Map<String, String> oldFileContents = getFileContents(diffs, true);
-        Map<String, String> newFileContents = getFileContents(diffs, false);
+    // Non modifica stato condiviso: può essere eseguito in parallelo su commit diversi
+    private List<MethodChange> findChangedMethods(CommitContents contents) {
+        List<MethodChange> changes = new ArrayList<>();
+        for (DiffEntry diff : contents.diffs) {
+            changes.addAll(findChangedMethods(diff, contents.oldFileContents, contents.newFileContents));
+        }
+        return changes;
+    }
 
-        for (DiffEntry diff : diffs) {
-            processDiffEntryForMethodMetrics(diff, commit, methodMap, oldFileContents, newFileContents);
+    /**
+     * Commit da analizzare, con i metodi modificati se sono già noti.
+     */
+    private static final class CommitTask {
+        private final int commit;
+        private final List<MethodChange> knownChanges;
+
+        private CommitTask(int commit, List<MethodChange> knownChanges) {
+            this.commit = commit;
+            this.knownChanges = knownChanges;
         }
     }
 
     /**
-     * Processa una singola voce di diff per aggiornare le metriche dei metodi.
+     * Diff di un commit con il contenuto dei file prima e dopo il commit, indicizzato per percorso.
      */
-    private void processDiffEntryForMethodMetrics(DiffEntry diff, RevCommit commit, Map<String, List<JavaMethod>> methodMap, Map<String, String> oldFileContents, Map<String, String> newFileContents) {
-        String filePath = diff.getChangeType() == DiffEntry.ChangeType.DELETE ? diff.getOldPath() : diff.getNewPath();
-        if (!filePath.endsWith(javaExtension) || filePath.contains(directoryTest)) return;
+    private static final class CommitContents {
+        private final List<DiffEntry> diffs;
+        private final Map<String, byte[]> oldFileContents;
+        private final Map<String, byte[]> newFileContents;
 
-        Map<String, MethodDeclaration> oldMethods = parseMethods(oldFileContents.getOrDefault(diff.getOldPath(), ""));
-        Map<String, MethodDeclaration> newMethods = parseMethods(newFileContents.getOrDefault(diff.getNewPath(), ""));
+        private CommitContents(List<DiffEntry> diffs, Map<String, byte[]> oldFileContents, Map<String, byte[]> newFileContents) {
+            this.diffs = diffs;
+            this.oldFileContents = oldFileContents;
+            this.newFileContents = newFileContents;
+        }
+    }
 
-        for (Map.Entry<String, MethodDeclaration> newMethodEntry : newMethods.entrySet()) {
-            String signature = newMethodEntry.getKey();
-            MethodDeclaration newMd = newMethodEntry.getValue();
-            MethodDeclaration oldMd = oldMethods.get(signature);
+    /**
+     * Individua i metodi aggiunti o modificati da una voce di diff.
+     * Gli hunk del diff delimitano le righe cambiate: un metodo che si trova per intero in una regione
+     * non toccata da alcun hunk è identico alla sua versione precedente e non viene né hashato né misurato.
+     */
+    private List<MethodChange> findChangedMethods(DiffEntry diff, Map<String, byte[]> oldFileContents, Map<String, byte[]> newFileContents) {
+        List<MethodChange> changes = new ArrayList<>();
+        if (diff.getChangeType() == DiffEntry.ChangeType.DELETE) return changes;
+        String filePath = diff.getNewPath();
+        if (!sourceFilter.accepts(filePath)) return changes;
 
-            String newBodyHash = calculateBodyHash(newMd);
-            String oldBodyHash = (oldMd != null) ? calculateBodyHash(oldMd) : null;
+        byte[] oldContent = oldFileContents.getOrDefault(diff.getOldPath(), EMPTY_CONTENT);
+        byte[] newContent = newFileContents.getOrDefault(filePath, EMPTY_CONTENT);
+        EditList edits = DIFF_ALGORITHM.diff(RawTextComparator.DEFAULT, new RawText(oldContent), new RawText(newContent));
+        if (edits.isEmpty()) return changes; // Contenuto invariato (es. rename o cambio di permessi)
 
-            if (oldMd == null || !newBodyHash.equals(oldBodyHash)) { // Se il metodo è nuovo o cambiato
-                String fqn = filePath + "/" + signature;
-                if (methodMap.containsKey(fqn)) {
-                    List<JavaMethod> methodsToUpdate = methodMap.get(fqn);
-                    updateMethodMetricsForCommit(methodsToUpdate, commit, newMd, oldMd, newBodyHash);
-                }
+        // Con terminatori di riga '\r' isolati le righe di JavaParser non coincidono con quelle del diff
+        boolean useEdits = !containsLoneCarriageReturn(oldContent) && !containsLoneCarriageReturn(newContent);
+
+        Map<String, SourceMethod> oldMethods = parseMethods(oldContent);
+        Map<String, SourceMethod> newMethods = parseMethods(newContent);
+
+        for (Map.Entry<String, SourceMethod> newMethodEntry : newMethods.entrySet()) {
+            String signature = newMethodEntry.getKey();
+            SourceMethod newMethod = newMethodEntry.getValue();
+            SourceMethod oldMethod = oldMethods.get(signature);
+            if (oldMethod != null && useEdits && isUnchangedByEdits(newMethod, oldMethod, edits)) continue;
+
+            if (oldMethod == null || newMethod.getBodyHash() != oldMethod.getBodyHash()) { // Se il metodo è nuovo o cambiato
+                int oldLoc = oldMethod != null ? oldMethod.getLoc() : -1;
+                changes.add(new MethodChange(filePath + "/" + signature, oldLoc, newMethod.getLoc(), newMethod.getBodyHash()));
             }
         }
+        return changes;
+    }
+
+    // Vero se le due versioni occupano la stessa regione allineata dal diff, senza hunk sulle loro righe
+    private static boolean isUnchangedByEdits(SourceMethod newMethod, SourceMethod oldMethod, EditList edits) {
+        Range newRange = newMethod.getRange();
+        Range oldRange = oldMethod.getRange();
+        if (newRange == null || oldRange == null) return false;
+        if (touchesLines(edits, newRange.begin.line, newRange.end.line, true)
+                || touchesLines(edits, oldRange.begin.line, oldRange.end.line, false)) {
+            return false;
+        }
+        return oldRange.begin.line == toOldLine(edits, newRange.begin.line)
+                && oldRange.end.line == toOldLine(edits, newRange.end.line)
+                && oldRange.begin.column == newRange.begin.column
+                && oldRange.end.column == newRange.end.column;
+    }
+
+    // Righe 1-based, estremi inclusi; gli Edit usano indici 0-based con fine esclusa e sono ordinati
+    private static boolean touchesLines(EditList edits, int firstLine, int lastLine, boolean newSide) {
+        for (Edit edit : edits) {
+            int begin = newSide ? edit.getBeginB() : edit.getBeginA();
+            int end = newSide ? edit.getEndB() : edit.getEndA();
+            if (begin >= lastLine) break;
+            if (end > begin && end >= firstLine) return true;
+        }
+        return false;
+    }
+
+    // Riga del file precedente corrispondente a una riga del nuovo file che nessun hunk modifica
+    private static int toOldLine(EditList edits, int newLine) {
+        int oldLine = newLine;
+        for (Edit edit : edits) {
+            if (edit.getEndB() >= newLine) break;
+            oldLine = edit.getEndA() + (newLine - edit.getEndB());
+        }
+        return oldLine;
+    }
+
+    private static boolean containsLoneCarriageReturn(byte[] content) {
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\r' && (i + 1 == content.length || content[i + 1] != '\n')) return true;
+        }
+        return false;
     }
 
     /**
      * Calcola le metriche finali (NAuth, AvgChurn) per tutti i metodi dopo che tutti i commit sono stati processati.
+     * Un commit conta per le istanze di un FQN con release >= release del commit; commit e istanze sono entrambi
+     * ordinati per release, quindi per ogni FQN gli autori si accumulano in un BitSet scorrendo le due liste una volta.
      */
-    private void calculateFinalMethodMetrics(List<JavaMethod> allMethods) {
-        for (JavaMethod method : allMethods) {
-            // Calcolo NAuth
-            if (!method.getCommits().isEmpty()) {
-                Set<String> authors = method.getCommits().stream()
-                        .map(c -> c.getAuthorIdent().getName())
-                        .collect(Collectors.toSet());
-                method.setNumAuthors(authors.size());
-            } else {
-                method.setNumAuthors(0);
-            }
-
-            // Calcolo AvgChurn
-            if (method.getNumRevisions() > 0) {
-                double avgChurn = (double) (method.getTotalStmtAdded() + method.getTotalStmtDeleted()) / method.getNumRevisions();
-                method.setAvgChurn(avgChurn);
-            } else {
-                method.setAvgChurn(0.0);
+    private void calculateFinalMethodMetrics(MethodTable allMethods, int[][] rowsByFqn, CommitList[] commitsByFqn, CommitTable allCommits) {
+        BitSet authors = new BitSet();
+        for (int fqnId = 0; fqnId < rowsByFqn.length; fqnId++) {
+            CommitList fqnCommits = commitsByFqn[fqnId] != null ? commitsByFqn[fqnId] : new CommitList();
+            authors.clear();
+            int nextCommit = 0;
+            for (int row : rowsByFqn[fqnId]) {
+                // Calcolo NAuth
+                while (nextCommit < fqnCommits.size() && getReleaseIndex().getReleaseOfCommit(allCommits,
+                        fqnCommits.get(nextCommit)).getId() <= allMethods.getReleaseId(row)) {
+                    authors.set(allCommits.getAuthorId(fqnCommits.get(nextCommit)));
+                    nextCommit++;
+                }
+                allMethods.setNumAuthors(row, authors.cardinality());
+                allMethods.setFirstCommit(row, nextCommit > 0 ? fqnCommits.get(0) : -1);
+
+                // Calcolo AvgChurn
+                if (allMethods.getNumRevisions(row) > 0) {
+                    double avgChurn = (double) (allMethods.getTotalStmtAdded(row) + allMethods.getTotalStmtDeleted(row)) / allMethods.getNumRevisions(row);
+                    allMethods.setAvgChurn(row, avgChurn);
+                } else {
+                    allMethods.setAvgChurn(row, 0.0);
+                }
             }
         }
     }
@@ -351,64 +699,68 @@ public class GitDataExtractor {
      * NOTA: La logica di calcolo del churn è stata allineata a quella del secondo codice.
      */
     // --- MODIFICA 1: LOGICA DI `updateMethodMetricsForCommit` ALLINEATA ---
-    private void updateMethodMetricsForCommit(List<JavaMethod> methodsToUpdate, RevCommit commit, MethodDeclaration currentMdAst, MethodDeclaration oldMdAst, String newBodyHash) {
-        Release releaseOfCommit = GitUtils.getReleaseOfCommit(commit, this.fullReleaseList);
-        if (releaseOfCommit == null) return;
-
-        for (JavaMethod projectMethod : methodsToUpdate) {
-            if (projectMethod.getRelease().getId() >= releaseOfCommit.getId()) {
-                projectMethod.addCommit(commit);
-                projectMethod.incrementNumRevisions();
-                projectMethod.setBodyHash(newBodyHash);
-
-                int currentCommitStmtAdded = 0;
-                int currentCommitStmtDeleted = 0;
-
-                // Logica di calcolo churn allineata a quella del secondo codice
-                if (oldMdAst != null) { // MODIFICA
-                    int locOld = calculateLOC(oldMdAst);
-                    int locNew = calculateLOC(currentMdAst);
-                    if (locNew > locOld) {
-                        currentCommitStmtAdded = locNew - locOld;
-                        projectMethod.addStmtAdded(currentCommitStmtAdded); // Aggiunta qui
-                    } else if (locOld > locNew) {
-                        currentCommitStmtDeleted = locOld - locNew;
-                        projectMethod.addStmtDeleted(currentCommitStmtDeleted); // Aggiunta qui
-                    }
-                } else { // AGGIUNTA
-                    currentCommitStmtAdded = calculateLOC(currentMdAst);
-                    projectMethod.addStmtAdded(currentCommitStmtAdded); // Aggiunta qui
+    // Restituisce true se almeno un'istanza è stata aggiornata
+    private static boolean updateMethodMetricsForCommit(MethodTable methods, int[] releaseInstances, int releaseOfCommit, MethodChange change) {
+        boolean updated = false;
+        // Le istanze sono ordinate per release: si aggiornano quelle con release >= release del commit
+        for (int i = releaseInstances.length - 1; i >= 0 && methods.getReleaseId(releaseInstances[i]) >= releaseOfCommit; i--) {
+            int row = releaseInstances[i];
+            updated = true;
+            methods.incrementNumRevisions(row);
+
+            int currentCommitStmtAdded = 0;
+            int currentCommitStmtDeleted = 0;
+
+            // Logica di calcolo churn allineata a quella del secondo codice
+            if (!change.isAdded()) { // MODIFICA
+                int locOld = change.getOldLoc();
+                int locNew = change.getNewLoc();
+                if (locNew > locOld) {
+                    currentCommitStmtAdded = locNew - locOld;
+                    methods.addStmtAdded(row, currentCommitStmtAdded); // Aggiunta qui
+                } else if (locOld > locNew) {
+                    currentCommitStmtDeleted = locOld - locNew;
+                    methods.addStmtDeleted(row, currentCommitStmtDeleted); // Aggiunta qui
                 }
+            } else { // AGGIUNTA
+                currentCommitStmtAdded = change.getNewLoc();
+                methods.addStmtAdded(row, currentCommitStmtAdded); // Aggiunta qui
+            }
 
-                int currentCommitChurn = currentCommitStmtAdded + currentCommitStmtDeleted;
-                if (currentCommitChurn > projectMethod.getMaxChurn()) {
-                    projectMethod.setMaxChurn(currentCommitChurn);
-                }
+            int currentCommitChurn = currentCommitStmtAdded + currentCommitStmtDeleted;
+            if (currentCommitChurn > methods.getMaxChurn(row)) {
+                methods.setMaxChurn(row, currentCommitChurn);
             }
         }
+        return updated;
     }
 
 
     /**
      * Itera su tutti i metodi e imposta il flag 'hasFixHistory' se sono stati modificati da un commit
      * di fix in una release precedente a quella corrente.
+     * I metodi modificati da ogni commit di fix vengono riletti dallo store dei commit già analizzati.
      */
-    public void calculateHasFixHistory(List<JavaMethod> allMethods) {
-        Map<String, Ticket> commitNameToTicketMap = new HashMap<>();
-        for (Ticket ticket : this.ticketList) {
-            for (RevCommit commit : ticket.getCommitList()) {
-                commitNameToTicketMap.put(commit.getName(), ticket);
-            }
-        }
+    public void calculateHasFixHistory(MethodTable allMethods) throws IOException {
+        int[][] rowsByFqn = indexMethodsByRelease(allMethods);
+        BitSet visitedFixCommits = new BitSet(commitList.size());
 
-        for (JavaMethod method : allMethods) {
-            Release currentMethodRelease = method.getRelease();
-            for (RevCommit commit : method.getCommits()) {
-                if (commitNameToTicketMap.containsKey(commit.getName())) {
-                    Release commitRelease = GitUtils.getReleaseOfCommit(commit, this.fullReleaseList);
-                    if (commitRelease != null && commitRelease.getId() < currentMethodRelease.getId()) {
-                        method.setHasFixHistory(1);
-                        break; // Trovato un fix, non serve continuare a cercare per questo metodo
+        for (Ticket ticket : this.ticketList) {
+            CommitList fixCommits = ticket.getCommitList();
+            for (int k = 0; k < fixCommits.size(); k++) {
+                int fixCommit = fixCommits.get(k);
+                if (!commitList.hasParent(fixCommit) || visitedFixCommits.get(fixCommit)) continue;
+                visitedFixCommits.set(fixCommit);
+                Release commitRelease = getReleaseIndex().getReleaseOfCommit(commitList, fixCommit);
+                if (commitRelease == null) continue;
+
+                for (MethodChange change : getCommitChanges(fixCommit)) {
+                    int fqnId = allMethods.getFqnId(change.getFullyQualifiedName());
+                    if (fqnId < 0) continue;
+                    int[] releaseInstances = rowsByFqn[fqnId];
+                    // Le istanze sono ordinate per release: si segnano quelle successive alla release del fix
+                    for (int i = releaseInstances.length - 1; i >= 0 && allMethods.getReleaseId(releaseInstances[i]) > commitRelease.getId(); i--) {
+                        allMethods.setHasFixHistory(releaseInstances[i], 1);
                     }
                 }
             }
@@ -418,54 +770,30 @@ public class GitDataExtractor {
     /**
      * Itera su tutti i ticket di bug e etichetta i metodi appropriati come "buggy".
      */
-    public void setMethodBuggyness(List<JavaMethod> allProjectMethods) {
+    public void setMethodBuggyness(MethodTable allProjectMethods) {
         if (this.ticketList == null) {
             LOGGER.warning("Ticket list non inizializzata per setMethodBuggyness.");
             return;
         }
+        int[][] rowsByFqn = indexMethodsByRelease(allProjectMethods);
 
         for (Ticket ticket : this.ticketList) {
             Release injectedVersion = ticket.getIv();
             if (injectedVersion == null) continue;
 
-            for (RevCommit fixCommit : ticket.getCommitList()) {
-                Release fixedVersion = GitUtils.getReleaseOfCommit(fixCommit, this.fullReleaseList);
+            CommitList fixCommits = ticket.getCommitList();
+            for (int i = 0; i < fixCommits.size(); i++) {
+                int fixCommit = fixCommits.get(i);
+                Release fixedVersion = getReleaseIndex().getReleaseOfCommit(commitList, fixCommit);
                 if (fixedVersion == null) continue;
 
                 try {
-                    if (fixCommit.getParentCount() == 0) continue;
-                    RevCommit parentOfFix = fixCommit.getParent(0);
-                    List<DiffEntry> diffs = getDiffEntries(parentOfFix, fixCommit);
-
-                    Map<String, String> newFileContentsInFix = getFileContents(diffs, false);
-                    Map<String, String> oldFileContentsInFix = getFileContents(diffs, true);
-
-                    for (DiffEntry diff : diffs) {
-                        String filePath = diff.getNewPath();
-                        if (!filePath.endsWith(javaExtension) || filePath.contains(directoryTest)) continue;
-
-                        String newContent = newFileContentsInFix.getOrDefault(filePath, "");
-                        Map<String, MethodDeclaration> newMethodsInFix = parseMethods(newContent);
-
-                        String oldContent = oldFileContentsInFix.getOrDefault(diff.getOldPath(), "");
-                        Map<String, MethodDeclaration> oldMethodsInFix = parseMethods(oldContent);
-
-                        for (Map.Entry<String, MethodDeclaration> newMethodEntry : newMethodsInFix.entrySet()) {
-                            String signature = newMethodEntry.getKey();
-                            MethodDeclaration newMd = newMethodEntry.getValue();
-                            MethodDeclaration oldMd = oldMethodsInFix.get(signature);
-
-                            String newHash = calculateBodyHash(newMd);
-                            String oldHash = calculateBodyHash(oldMd);
-
-                            if (oldMd == null || !newHash.equals(oldHash)) { // Metodo nuovo o cambiato
-                                String fqn = filePath + "/" + signature;
-                                labelBuggyMethods(fqn, injectedVersion, fixedVersion, allProjectMethods);
-                            }
-                        }
+                    if (!commitList.hasParent(fixCommit)) continue;
+                    for (MethodChange change : getCommitChanges(fixCommit)) {
+                        labelBuggyMethods(allProjectMethods, change.getFullyQualifiedName(), injectedVersion, fixedVersion, rowsByFqn);
                     }
                 } catch (IOException e) {
-                    LOGGER.log(Level.SEVERE, "Errore durante l'analisi del commit di fix {0} {1}" + new Object[]{fixCommit.getName(), e});
+                    LOGGER.log(Level.SEVERE, "Errore durante l'analisi del commit di fix {0} {1}" + new Object[]{commitList.getName(fixCommit), e});
                 }
             }
         }
@@ -473,155 +801,108 @@ public class GitDataExtractor {
 
     /**
      * Metodo ausiliario per etichettare le istanze di un metodo come buggy.
+     * Le istanze sono ordinate per release: la prima con release >= IV si trova con una ricerca binaria
+     * e si etichettano le successive finché la release è precedente alla FV.
      */
-    private void labelBuggyMethods(String fixedMethodFQN, Release injectedVersion, Release fixedVersion, List<JavaMethod> allProjectMethods) {
-        for (JavaMethod projectMethod : allProjectMethods) {
-            if (projectMethod.getFullyQualifiedName().equals(fixedMethodFQN)) {
-                if (projectMethod.getRelease().getId() >= injectedVersion.getId() && projectMethod.getRelease().getId() < fixedVersion.getId()) {
-                    projectMethod.setBuggy(true);
-                }
+    private static void labelBuggyMethods(MethodTable methods, String fixedMethodFQN, Release injectedVersion, Release fixedVersion, int[][] rowsByFqn) {
+        int fqnId = methods.getFqnId(fixedMethodFQN);
+        if (fqnId < 0) return;
+        int[] releaseInstances = rowsByFqn[fqnId];
+
+        int low = 0;
+        int high = releaseInstances.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (methods.getReleaseId(releaseInstances[mid]) < injectedVersion.getId()) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
         }
-    }
-
-    // --- METODI DI UTILITÀ PRIVATI ---
-
-    private int calculateLOC(MethodDeclaration md) {
-        if (md.getBody().isPresent()) {
-            String[] lines = md.getBody().get().toString().split("\r\n|\r|\n");
-            boolean inMultiLineComment = false;
-            int locCount = 0;
-
-            for (String line : lines) {
-                String trimmedLine = line.trim();
-
-                if (trimmedLine.startsWith("/*")) {
-                    inMultiLineComment = true;
-                    if (trimmedLine.endsWith("*/") && trimmedLine.length() > 2) {
-                        inMultiLineComment = false;
-                    }
-                    continue;
-                }
-
-                if (trimmedLine.endsWith("*/")) {
-                    inMultiLineComment = false;
-                    continue;
-                }
-
-                if (inMultiLineComment) {
-                    continue;
-                }
-
-                if (!trimmedLine.isEmpty() &&
-                        !trimmedLine.startsWith("//") &&
-                        !(trimmedLine.equals("{") || trimmedLine.equals("}"))) {
-                    locCount++;
-                }
-            }
-            return locCount;
+        for (int i = low; i < releaseInstances.length && methods.getReleaseId(releaseInstances[i]) < fixedVersion.getId(); i++) {
+            methods.setBuggy(releaseInstances[i], true);
         }
-        return 0;
     }
 
-
-    private int calculateNumBranches(MethodDeclaration md) {
-        if (!md.getBody().isPresent()) return 0;
-        int branches = 0;
-        branches += md.findAll(IfStmt.class).size();
-        branches += md.findAll(ConditionalExpr.class).size();
-        branches += md.findAll(ForStmt.class).size();
-        branches += md.findAll(ForEachStmt.class).size();
-        branches += md.findAll(WhileStmt.class).size();
-        branches += md.findAll(DoStmt.class).size();
-        for (SwitchStmt switchStmt : md.findAll(SwitchStmt.class)) {
-            branches += switchStmt.getEntries().size();
+    /**
+     * Raggruppa le righe metodo-release per id dell'FQN, ordinando ogni gruppo per ID di release
+     * (un FQN compare al più una volta per release).
+     */
+    private static int[][] indexMethodsByRelease(MethodTable allMethods) {
+        int[] groupSizes = new int[allMethods.getNumFqns()];
+        for (int row = 0; row < allMethods.size(); row++) {
+            groupSizes[allMethods.getFqnIdOf(row)]++;
         }
-        branches += md.findAll(CatchClause.class).size();
-        return branches;
-    }
-
-    private int calculateNestingDepth(MethodDeclaration md) {
-        if (!md.getBody().isPresent()) return 0;
-        this.nestingVisitor.reset();
-        md.getBody().get().accept(this.nestingVisitor, null);
-        return this.nestingVisitor.getMaxDepth();
-    }
-
-    private int calculateNumLocalVariables(MethodDeclaration md) {
-        if (!md.getBody().isPresent()) return 0;
-        return md.getBody().get().findAll(VariableDeclarator.class).size();
-    }
-
-    private String calculateBodyHash(MethodDeclaration md) {
-        if (md == null) return "NULL_METHOD_HASH";
-        String normalizedBody = normalizeMethodBody(md);
-        if (normalizedBody.isEmpty()) return "EMPTY_BODY_HASH";
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] encodedhash = digest.digest(normalizedBody.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(encodedhash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("SHA-256 Hashing error", e);
+        int[][] index = new int[groupSizes.length][];
+        for (int fqnId = 0; fqnId < groupSizes.length; fqnId++) {
+            index[fqnId] = new int[groupSizes[fqnId]];
+            groupSizes[fqnId] = 0;
         }
+        for (int row = 0; row < allMethods.size(); row++) {
+            int fqnId = allMethods.getFqnIdOf(row);
+            index[fqnId][groupSizes[fqnId]++] = row;
+        }
+        for (int[] releaseInstances : index) {
+            sortByRelease(allMethods, releaseInstances);
+        }
+        return index;
     }
 
-    private String normalizeMethodBody(MethodDeclaration md) {
-        if (!md.getBody().isPresent()) return "";
-        String body = md.getBody().get().toString();
-        body = body.replaceAll("//.*|/\\*(?s:.*?)\\*/", ""); // Rimuovi commenti
-        body = body.replaceAll("\\s+", " "); // Sostituisci spazi multipli con uno singolo
-        return body.trim();
-    }
-
-    private static String bytesToHex(byte[] hash) {
-        StringBuilder hexString = new StringBuilder(2 * hash.length);
-        for (byte b : hash) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
+    // Insertion sort: i gruppi hanno al più una riga per release
+    private static void sortByRelease(MethodTable allMethods, int[] rows) {
+        for (int i = 1; i < rows.length; i++) {
+            int row = rows[i];
+            int releaseId = allMethods.getReleaseId(row);
+            int j = i - 1;
+            while (j >= 0 && allMethods.getReleaseId(rows[j]) > releaseId) {
+                rows[j + 1] = rows[j];
+                j--;
             }
-            hexString.append(hex);
+            rows[j + 1] = row;
         }
-        return hexString.toString();
     }
 
-    private int calculateCodeSmells(MethodDeclaration md, int cyclomaticComplexity, int loc, int nestingDepth, int numParameters) {
-        if (!md.getBody().isPresent()) return 0;
-        int smellCount = 0;
-        BlockStmt body = md.getBody().get();
-
-        if (cyclomaticComplexity > 7) smellCount++;
-        if (loc > 30) smellCount++;
-        if (nestingDepth > 4) smellCount++;
-        if (numParameters > 5) smellCount++;
+    // --- METODI DI UTILITÀ PRIVATI ---
 
-        for (SwitchStmt switchStmt : body.findAll(SwitchStmt.class)) {
-            if (switchStmt.getEntries().stream().noneMatch(entry -> entry.getLabels().isEmpty())) {
-                smellCount++;
-            }
+    // Indice commit -> release, costruito sulle release rimaste dopo il filtraggio
+    private ReleaseIndex getReleaseIndex() {
+        if (this.releaseIndex == null) {
+            this.releaseIndex = new ReleaseIndex(this.fullReleaseList);
         }
-        for (CatchClause catchClause : body.findAll(CatchClause.class)) {
-            if (catchClause.getBody().getStatements().isEmpty()) {
-                smellCount++;
-            }
-        }
-        if (body.findAll(InstanceOfExpr.class).size() > 2) {
-            smellCount++;
-        }
-        String methodName = md.getNameAsString();
-        if (methodName.equals("equals") || methodName.equals("hashCode") || methodName.equals("toString")) {
-            if (md.getAnnotations().stream().noneMatch(a -> a.getNameAsString().equals("Override"))) {
-                smellCount++;
+        return this.releaseIndex;
+    }
+
+    /**
+     * Assegna i commit alle release con un'unica scansione in O(C + R) sulle date in giorni epoch.
+     * Una release riceve i commit con data compresa tra quella della release precedente (o il 1970-01-01 per la
+     * prima) e la propria, estremi inclusi: le release di un commit sono quindi un intervallo contiguo, dalla
+     * prima con data >= data del commit a quella successiva all'ultima con data <= data del commit.
+     * Commit e release sono ordinati per data, quindi i due estremi avanzano insieme ai commit.
+     */
+    private void assignCommitsToReleases() {
+        int numReleases = this.fullReleaseList.size();
+        long[] releaseEpochDays = new long[numReleases];
+        for (int i = 0; i < numReleases; i++) {
+            releaseEpochDays[i] = this.fullReleaseList.get(i).getDate().toEpochDay();
+        }
+        long lowerBoundEpochDay = Instant.EPOCH.atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+
+        int first = 0; // Prima release con data >= data del commit
+        int afterLast = 0; // Numero di release con data <= data del commit
+        for (int commit = 0; commit < commitList.size(); commit++) {
+            long commitEpochDay = commitList.getEpochDay(commit);
+            while (first < numReleases && releaseEpochDays[first] < commitEpochDay) first++;
+            while (afterLast < numReleases && releaseEpochDays[afterLast] <= commitEpochDay) afterLast++;
+            // Un cambio d'ora a mezzanotte può far tornare indietro di un giorno la data locale
+            while (first > 0 && releaseEpochDays[first - 1] >= commitEpochDay) first--;
+            while (afterLast > 0 && releaseEpochDays[afterLast - 1] > commitEpochDay) afterLast--;
+
+            int from = first == 0 && commitEpochDay < lowerBoundEpochDay ? 1 : first;
+            int to = Math.min(afterLast, numReleases - 1);
+            for (int i = from; i <= to; i++) {
+                this.fullReleaseList.get(i).addCommit(commit);
             }
         }
-        long magicNumberCount = body.findAll(IntegerLiteralExpr.class).stream()
-                .filter(n -> { try { int val = n.asInt(); return val != 0 && val != 1 && val != -1; } catch (Exception e) { return true; } })
-                .filter(n -> n.getParentNode().map(p -> !(p instanceof VariableDeclarator)).orElse(true))
-                .count();
-        if (magicNumberCount > 1) {
-            smellCount++;
-        }
-        return smellCount;
     }
 
     private void filterAndRenumberReleases() {
@@ -632,40 +913,60 @@ public class GitDataExtractor {
         }
     }
 
-    private List<DiffEntry> getDiffEntries(RevCommit parent, RevCommit commit) throws IOException {
-        try (DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
-            diffFormatter.setRepository(repository);
-            diffFormatter.setDiffComparator(RawTextComparator.DEFAULT);
-            diffFormatter.setContext(0);
-            return diffFormatter.scan(parent.getTree(), commit.getTree());
-        }
+    /**
+     * Crea un DiffFormatter che legge gli oggetti dal reader indicato e confronta solo i file sorgente da analizzare.
+     * Non è thread-safe: viene riusato per tutti i commit di un solo thread.
+     */
+    private DiffFormatter newDiffFormatter(ObjectReader reader) {
+        DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+        diffFormatter.setReader(reader, repository.getConfig());
+        diffFormatter.setDiffComparator(RawTextComparator.DEFAULT);
+        diffFormatter.setContext(0);
+        diffFormatter.setPathFilter(sourceFilter.toTreeFilter());
+        return diffFormatter;
     }
 
-    private Map<String, String> getFileContents(List<DiffEntry> diffs, boolean useOldPath) throws IOException {
-        Map<String, String> contents = new HashMap<>();
-        try (ObjectReader reader = repository.newObjectReader()) {
-            for (DiffEntry diff : diffs) {
-                String path = useOldPath ? diff.getOldPath() : diff.getNewPath();
-                ObjectId id = useOldPath ? diff.getOldId().toObjectId() : diff.getNewId().toObjectId();
-                if (DiffEntry.DEV_NULL.equals(path)) continue;
-
-                try {
-                    ObjectLoader loader = reader.open(id);
-                    contents.put(path, new String(loader.getBytes(), StandardCharsets.UTF_8));
-                } catch (org.eclipse.jgit.errors.MissingObjectException e) {
-                    LOGGER.log(Level.WARNING, "Missing object: {0} for path {1} {2}", new Object[]{id, path, e});
-                }
+    private static Map<String, byte[]> getFileContents(List<DiffEntry> diffs, boolean useOldPath, ObjectReader reader) throws IOException {
+        Map<String, byte[]> contents = new HashMap<>();
+        for (DiffEntry diff : diffs) {
+            String path = useOldPath ? diff.getOldPath() : diff.getNewPath();
+            ObjectId id = useOldPath ? diff.getOldId().toObjectId() : diff.getNewId().toObjectId();
+            // I file cancellati non vengono analizzati
+            if (DiffEntry.DEV_NULL.equals(path) || diff.getChangeType() == DiffEntry.ChangeType.DELETE) continue;
+
+            try {
+                ObjectLoader loader = reader.open(id);
+                contents.put(path, loader.getBytes());
+            } catch (org.eclipse.jgit.errors.MissingObjectException e) {
+                LOGGER.log(Level.WARNING, "Missing object: {0} for path {1} {2}", new Object[]{id, path, e});
             }
         }
         return contents;
     }
 
-    private Map<String, MethodDeclaration> parseMethods(String content) {
-        Map<String, MethodDeclaration> methods = new HashMap<>();
-        if (content == null || content.isEmpty()) return methods;
+    /**
+     * Estrae firma, posizione, impronta del corpo e LOC dei metodi di un file Java.
+     * Di norma basta lo scanner lessicale; JavaParser viene usato solo quando lo scanner non riesce
+     * a delimitare i metodi (enum, record, classi anonime o locali...).
+     * Impronta e LOC sono calcolate solo per i metodi di cui vengono richieste.
+     */
+    private static Map<String, SourceMethod> parseMethods(byte[] content) {
+        Map<String, SourceMethod> methods = new HashMap<>();
+        if (content == null || content.length == 0) return methods;
+        String source = new String(content, StandardCharsets.UTF_8);
+        Map<String, SourceMethod> scannedMethods = JavaMethodScanner.scan(source);
+        if (scannedMethods != null) return scannedMethods;
         try {
-            StaticJavaParser.parse(content).findAll(MethodDeclaration.class)
-                    .forEach(md -> methods.put(JavaMethod.getSignature(md), md));
+            for (MethodDeclaration md : JavaParsers.parse(source).findAll(MethodDeclaration.class)) {
+                String signature = SourceMethod.getSignature(md);
+                methods.put(signature, new SourceMethod(signature, md.getRange().orElse(null), new SourceMethod.Body() {
+                    @Override
+                    public long hash() { return MethodFingerprint.of(md); }
+
+                    @Override
+                    public int loc() { return MethodMetricsVisitor.countLinesOfCode(md); }
+                }));
+            }
         } catch (Exception e) {
             // Ignora errori di parsing
         }
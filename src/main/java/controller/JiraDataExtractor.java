@@ -1,30 +1,61 @@
 package controller;
 
+import model.JiraIssue;
 import model.Release;
 import model.Ticket;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import utils.JiraPageFetcher;
+import utils.JiraTicketStore;
 import utils.JiraUtils;
+import utils.JsonPullParser;
+import utils.PrintUtils;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 public class JiraDataExtractor {
 
+    private static final String JIRA_REST_URL = "https://issues.apache.org/jira/rest/api/";
+
+    private static final String FIXED_BUGS_JQL = "%22issueType%22=%22Bug%22AND" +
+            "(%22status%22=%22Closed%22OR%22status%22=%22Resolved%22)" +
+            "AND%22resolution%22=%22Fixed%22";
+    private static final String UPDATED_BUGS_JQL = "%22issueType%22=%22Bug%22AND%22updated%22%3E=%22";
+    private static final String FIELDS = "key,versions,created,resolutiondate";
+    private static final Duration SYNC_OVERLAP = Duration.ofDays(1);
+
     private final String projName;
+    private final String restUrl;
+    // Copia locale dei ticket, usata quando la sincronizzazione incrementale è attiva
+    private JiraTicketStore ticketStore;
 
     public JiraDataExtractor(String projName) {
+        this(projName, JIRA_REST_URL);
+    }
+
+    // restUrl è la radice delle API REST, es. quella di un server locale con pagine preparate
+    public JiraDataExtractor(String projName, String restUrl) {
         this.projName = projName.toUpperCase();
+        this.restUrl = restUrl;
     }
 
     public List<Release> getReleases() throws IOException {
         List<Release> releaseList = new ArrayList<>();
-        String url = "https://issues.apache.org/jira/rest/api/latest/project/" + this.projName;
-        JSONObject json = JiraUtils.readJsonFromUrl(url);
+        String url = this.restUrl + "latest/project/" + this.projName;
+        JiraUtils.seedProjectVersions(url, Paths.get(this.projName + "VersionInfo.csv"));
+        // con la sincronizzazione incrementale le release vanno sempre rilette, non prese dalla cache delle risposte
+        JSONObject json = JiraUtils.readJsonFromUrl(url, JiraUtils.isIncrementalTicketSync());
         JSONArray versions = json.getJSONArray("versions");
 
         for (int i=0; i < versions.length(); i++) {
@@ -49,59 +80,269 @@ public class JiraDataExtractor {
 
 
     public List<Ticket> getTickets(List<Release> releasesList) throws IOException {
+        List<JiraIssue> issues;
+        if (JiraUtils.isIncrementalTicketSync()) {
+            if (this.ticketStore == null) {
+                this.ticketStore = JiraTicketStore.open(this.projName);
+            }
+            syncTicketStore();
+            issues = this.ticketStore.getIssues();
+        } else {
+            issues = searchIssues(FIXED_BUGS_JQL, FIELDS, false);
+        }
 
-        int j;
-        int i = 0;
-        int total;
         List<Ticket> ticketsList = new ArrayList<>();
-        do {
-            j = i + 1000;
-            String url = "https://issues.apache.org/jira/rest/api/2/search?jql=project=%22"
-                    + this.projName + "%22AND%22issueType%22=%22Bug%22AND" +
-                    "(%22status%22=%22Closed%22OR%22status%22=%22Resolved%22)" +
-                    "AND%22resolution%22=%22Fixed%22&fields=key,versions,created,resolutiondate&startAt="
-                    + i + "&maxResults=" + j;
-            JSONObject json = JiraUtils.readJsonFromUrl(url);
-            JSONArray issues = json.getJSONArray("issues");
-            total = json.getInt("total");
-            for (; i < total && i < j; i++) {
-                //Iterate through each bug to retrieve ID, creation date, resolution date and affected versions
-                String key = issues.getJSONObject(i%1000).get("key").toString();
-                JSONObject fields = issues.getJSONObject(i%1000).getJSONObject("fields");
-                String creationDateString = fields.get("created").toString();
-                String resolutionDateString = fields.get("resolutiondate").toString();
-                LocalDate creationDate = LocalDate.parse(creationDateString.substring(0,10));
-                LocalDate resolutionDate = LocalDate.parse(resolutionDateString.substring(0,10));
-                JSONArray affectedVersionsArray = fields.getJSONArray("versions");
-
-                //to obtain the opening version and the fixed version I use the creation date and the release date
-                Release openingVersion = JiraUtils.getReleaseAfterOrEqualDate(creationDate, releasesList);
-                Release fixedVersion =  JiraUtils.getReleaseAfterOrEqualDate(resolutionDate, releasesList);
-
-                //obtaining the affected releases
-                List<Release> affectedVersionsList = JiraUtils.returnAffectedVersions(affectedVersionsArray, releasesList);
-
-                //checking if the ticket is not valid
-                if(!affectedVersionsList.isEmpty() && openingVersion!=null && fixedVersion!=null && (!affectedVersionsList.get(0).getDate().isBefore(openingVersion.getDate()) || openingVersion.getDate().isAfter(fixedVersion.getDate()))){
-                    continue;
+        for (JiraIssue issue : issues) {
+            addTicket(issue, releasesList, ticketsList);
+        }
+        ticketsList.sort(Comparator.comparing(Ticket::getResolutionDate));
+        return ticketsList;
+    }
+
+    // Alla prima esecuzione scarica tutti i bug risolti, poi solo i bug aggiornati dall'ultima sincronizzazione
+    private void syncTicketStore() throws IOException {
+        long syncStart = System.currentTimeMillis();
+        long lastSync = this.ticketStore.getLastSyncMillis();
+        if (lastSync == 0) {
+            List<JiraIssue> issues = searchIssues(FIXED_BUGS_JQL, FIELDS, true);
+            this.ticketStore.replaceAll(issues);
+            PrintUtils.Console.info(this.projName + ": " + issues.size() + " Jira tickets downloaded.");
+        } else {
+            // le date JQL sono al minuto e nel fuso del server: si riparte da un giorno prima dell'ultima sincronizzazione
+            String since = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm")
+                    .format(LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSync).minus(SYNC_OVERLAP), ZoneOffset.UTC))
+                    .replace(" ", "%20");
+            List<JiraIssue> fixedIssues = new ArrayList<>();
+            List<String> removedKeys = new ArrayList<>();
+            for (JiraIssue issue : searchIssues(UPDATED_BUGS_JQL + since + "%22", FIELDS + ",status,resolution", true)) {
+                // un bug riaperto o non più risolto come Fixed esce dall'insieme
+                if (isFixedBug(issue)) {
+                    fixedIssues.add(issue);
+                } else {
+                    removedKeys.add(issue.getKey());
                 }
+            }
+            int changed = this.ticketStore.merge(fixedIssues, removedKeys);
+            PrintUtils.Console.info(this.projName + ": " + changed + " Jira tickets changed since the last sync.");
+        }
+        this.ticketStore.setLastSyncMillis(syncStart);
+        this.ticketStore.save();
+    }
+
+    private static boolean isFixedBug(JiraIssue issue) {
+        return ("Closed".equals(issue.getStatus()) || "Resolved".equals(issue.getStatus())) && "Fixed".equals(issue.getResolution());
+    }
+
+    // bypassCache: le query della sincronizzazione non passano dalla cache delle risposte, che può essere vecchia
+    private List<JiraIssue> searchIssues(String jql, String fields, boolean bypassCache) throws IOException {
 
-                //the opening version must be different from the first release
-                if(openingVersion != null && fixedVersion != null && openingVersion.getId()!=releasesList.get(0).getId()){
-                    ticketsList.add(new Ticket(key, creationDate, resolutionDate, openingVersion, fixedVersion, affectedVersionsList));
+        int i = 0;
+        int total = 0;
+        int pageSize = 0;
+        int nextRequest = 0;
+        List<JiraIssue> issues = new ArrayList<>();
+        JiraPageFetcher fetcher = JiraUtils.getPageFetcher();
+        try (JiraPageFetcher.Session<SearchPage> pages = fetcher.open(startAt -> readSearchPage(jql, fields, bypassCache, startAt))) {
+            do {
+                SearchPage page = pages.take(i);
+                total = page.total;
+                if (page.next == i && i < total) {
+                    throw new JSONException("Jira search page starting at " + i + " has no issues, " + total + " expected");
+                }
+                // la prima pagina dà la dimensione delle pagine
+                if (pageSize == 0) pageSize = page.next - page.startAt;
+                issues.addAll(page.issues);
+                i = page.next;
+                // una pagina più corta del previsto: le successive vengono richieste di nuovo da i
+                if (i < total && i != page.startAt + pageSize) {
+                    pages.cancelPending();
+                    nextRequest = i;
                 }
+                // restano sempre in lettura fino a parallelism pagine successive
+                nextRequest = Math.max(nextRequest, i);
+                while (nextRequest < total && nextRequest < i + pageSize * fetcher.getParallelism()) {
+                    pages.request(nextRequest);
+                    nextRequest += pageSize;
+                }
+            } while (i < total);
+        }
+        return issues;
+    }
+
+    private SearchPage readSearchPage(String jql, String fields, boolean bypassCache, int startAt) throws IOException {
+        int j = startAt + 1000;
+        String url = this.restUrl + "2/search?jql=project=%22" + this.projName + "%22AND" + jql
+                + "&fields=" + fields + "&startAt=" + startAt + "&maxResults=" + j;
+        SearchPage page = new SearchPage(startAt, j);
+        try (JsonPullParser parser = new JsonPullParser(JiraUtils.openJsonReader(url, bypassCache))) {
+            readSearchPage(parser, page);
+        }
+        return page;
+    }
+
+    /**
+     * Pagina della ricerca: le issue con indice in [startAt, end), lette fino a next.
+     */
+    private static final class SearchPage {
+        private final int startAt;
+        private final int end;
+        private int next;
+        private int total = -1;
+        private final List<JiraIssue> issues = new ArrayList<>();
+
+        private SearchPage(int startAt, int end) {
+            this.startAt = startAt;
+            this.next = startAt;
+            this.end = end;
+        }
+
+        // Finché total non è stato letto vale solo il limite della pagina
+        private boolean wants() {
+            return next < end && (total < 0 || next < total);
+        }
+    }
 
+    // La pagina viene letta in streaming: di ogni issue si decodificano solo i campi usati, il resto viene saltato
+    private static void readSearchPage(JsonPullParser parser, SearchPage page) throws IOException {
+        parser.beginObject();
+        while (parser.hasNext()) {
+            String name = parser.nextName();
+            if (name.equals("total")) {
+                page.total = parser.nextInt();
+            } else if (name.equals("issues")) {
+                parser.beginArray();
+                while (parser.hasNext()) {
+                    if (page.wants()) {
+                        page.issues.add(readIssue(parser));
+                        page.next++;
+                    } else {
+                        parser.skipValue();
+                    }
+                }
+                parser.endArray();
+            } else {
+                parser.skipValue();
             }
-        } while (i < total);
-        ticketsList.sort(Comparator.comparing(Ticket::getResolutionDate));
-        return ticketsList;
+        }
+        parser.endObject();
+        // fino alla fine della risposta, così in record mode la cache viene scritta
+        parser.peek();
+        if (page.total < 0) {
+            throw new JSONException("JSONObject[\"total\"] not found.");
+        }
+    }
+
+    private static JiraIssue readIssue(JsonPullParser parser) throws IOException {
+        //Iterate through each bug to retrieve ID, creation date, resolution date and affected versions
+        String key = null;
+        String creationDateString = null;
+        String resolutionDateString = null;
+        List<String> affectedVersionNames = null;
+        String status = null;
+        String resolution = null;
+
+        parser.beginObject();
+        while (parser.hasNext()) {
+            String name = parser.nextName();
+            if (name.equals("key")) {
+                key = parser.nextString();
+            } else if (name.equals("fields")) {
+                parser.beginObject();
+                while (parser.hasNext()) {
+                    String field = parser.nextName();
+                    if (field.equals("created")) {
+                        creationDateString = parser.nextString();
+                    } else if (field.equals("resolutiondate")) {
+                        resolutionDateString = parser.nextString();
+                    } else if (field.equals("versions")) {
+                        affectedVersionNames = readVersionNames(parser);
+                    } else if (field.equals("status")) {
+                        status = readName(parser);
+                    } else if (field.equals("resolution")) {
+                        resolution = readName(parser);
+                    } else {
+                        parser.skipValue();
+                    }
+                }
+                parser.endObject();
+            } else {
+                parser.skipValue();
+            }
+        }
+        parser.endObject();
+
+        return new JiraIssue(required(key, "key"), required(creationDateString, "created"), required(resolutionDateString, "resolutiondate"),
+                required(affectedVersionNames, "versions"), status, resolution);
+    }
+
+    private static List<String> readVersionNames(JsonPullParser parser) throws IOException {
+        List<String> names = new ArrayList<>();
+        parser.beginArray();
+        while (parser.hasNext()) {
+            names.add(required(readName(parser), "name"));
+        }
+        parser.endArray();
+        return names;
+    }
+
+    // Campo name di un oggetto come {"id": ..., "name": ...}; null se l'oggetto è null o non ha il nome
+    private static String readName(JsonPullParser parser) throws IOException {
+        if (parser.peek() == JsonPullParser.Token.LITERAL) {
+            parser.skipValue();
+            return null;
+        }
+        String name = null;
+        parser.beginObject();
+        while (parser.hasNext()) {
+            if (parser.nextName().equals("name")) {
+                name = parser.nextString();
+            } else {
+                parser.skipValue();
+            }
+        }
+        parser.endObject();
+        return name;
+    }
+
+    private static <T> T required(T value, String name) {
+        if (value == null) throw new JSONException("JSONObject[\"" + name + "\"] not found.");
+        return value;
+    }
+
+    private static void addTicket(JiraIssue issue, List<Release> releasesList, List<Ticket> ticketsList) {
+        LocalDate creationDate = LocalDate.parse(issue.getCreated().substring(0,10));
+        LocalDate resolutionDate = LocalDate.parse(issue.getResolutionDate().substring(0,10));
+
+        //to obtain the opening version and the fixed version I use the creation date and the release date
+        Release openingVersion = JiraUtils.getReleaseAfterOrEqualDate(creationDate, releasesList);
+        Release fixedVersion =  JiraUtils.getReleaseAfterOrEqualDate(resolutionDate, releasesList);
+
+        //obtaining the affected releases
+        List<Release> affectedVersionsList = JiraUtils.returnAffectedVersions(issue.getVersionNames(), releasesList);
+
+        //checking if the ticket is not valid
+        if(!affectedVersionsList.isEmpty() && openingVersion!=null && fixedVersion!=null && (!affectedVersionsList.get(0).getDate().isBefore(openingVersion.getDate()) || openingVersion.getDate().isAfter(fixedVersion.getDate()))){
+            return;
+        }
+
+        //the opening version must be different from the first release
+        if(openingVersion != null && fixedVersion != null && openingVersion.getId()!=releasesList.get(0).getId()){
+            ticketsList.add(new Ticket(issue.getKey(), creationDate, resolutionDate, openingVersion, fixedVersion, affectedVersionsList));
+        }
     }
 
     public List<Ticket> getFinalTickets(List<Release> releasesList, boolean fix) throws IOException, JSONException {
         List<Ticket> ticketsList = getTickets(releasesList);
 
         if(fix) {
-            List<Ticket> newTicketList = JiraUtils.addIVandAV(ticketsList, releasesList);
+            List<Ticket> newTicketList;
+            if (this.ticketStore == null) {
+                newTicketList = JiraUtils.addIVandAV(ticketsList, releasesList);
+            } else {
+                // gli IV stimati nelle esecuzioni precedenti e non toccati dalla sincronizzazione vengono riusati
+                newTicketList = JiraUtils.addIVandAV(ticketsList, releasesList, this.ticketStore.getEstimatedIvs(releasesList));
+                this.ticketStore.save();
+            }
             newTicketList.sort(Comparator.comparing(Ticket::getResolutionDate));
             return newTicketList;
         }else{
@@ -1,15 +1,11 @@
 package controller;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.ast.expr.ConditionalExpr;
-import com.github.javaparser.ast.expr.InstanceOfExpr;
-import com.github.javaparser.ast.expr.IntegerLiteralExpr;
-import com.github.javaparser.ast.stmt.*;
-import utils.NestingDepthVisitor;
+import model.MethodMetrics;
+import utils.JavaParsers;
+import utils.MethodMetricsVisitor;
 import utils.PrintUtils.Console;
 
 import java.io.FileWriter;
@@ -77,7 +73,7 @@ public class MetricsAnalyzerFromFile {
 
         CompilationUnit cu;
         try {
-            cu = StaticJavaParser.parse(fullCodeToParse);
+            cu = JavaParsers.parse(fullCodeToParse);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE,"ERRORE GRAVE DI PARSING: Controlla che il file {0} contenga codice Java valido.", inputFile);
             e.printStackTrace();
@@ -125,17 +121,12 @@ public class MetricsAnalyzerFromFile {
         Console.info("Analisi completata. Report CSV generato con successo.");
     }
 
-    private static void printMetrics(MethodDeclaration md, String version, PrintWriter writer) {
-        int loc = calculateLOC(md);
-        int numParams = md.getParameters().size();
-        int numBranches = calculateNumBranches(md);
-        int cyclomaticComplexity = numBranches + 1;
-        int nestingDepth = calculateNestingDepth(md);
-        int numSmells = calculateCodeSmells(md, cyclomaticComplexity, loc, nestingDepth, numParams);
-        int numVars = calculateNumLocalVariables(md);
-
+    private static MethodMetrics printMetrics(MethodDeclaration md, String version, PrintWriter writer) {
+        MethodMetrics metrics = MethodMetricsVisitor.measure(md);
         writer.printf("%s,%s,%d,%d,%d,%d,%d,%d%n",
-                md.getNameAsString(), version, loc, numParams, numBranches, nestingDepth, numSmells, numVars);
+                md.getNameAsString(), version, metrics.getLoc(), metrics.getNumParameters(), metrics.getNumBranches(),
+                metrics.getNestingDepth(), metrics.getNumCodeSmells(), metrics.getNumLocalVariables());
+        return metrics;
     }
 
     private static void printRefactoredMetrics(MethodDeclaration mainRefactored, List<MethodDeclaration> allRefactored, PrintWriter writer) {
@@ -150,15 +141,13 @@ public class MetricsAnalyzerFromFile {
 
         for (MethodDeclaration md : allRefactored) {
             String versionTag = md.getNameAsString().equals(mainRefactored.getNameAsString()) ? "Refactored_EntryPoint" : "Refactored_Helper";
-            printMetrics(md, versionTag, writer); // Riutilizziamo il metodo di stampa
+            MethodMetrics metrics = printMetrics(md, versionTag, writer); // Riutilizziamo il metodo di stampa
 
-            totalLoc += calculateLOC(md);
-            totalBranches += calculateNumBranches(md);
-            int nestingDepth = calculateNestingDepth(md);
-            if (nestingDepth > maxNesting) maxNesting = nestingDepth;
-            int cyclomaticComplexity = calculateNumBranches(md) + 1;
-            totalSmells += calculateCodeSmells(md, cyclomaticComplexity, calculateLOC(md), nestingDepth, md.getParameters().size());
-            totalVars += calculateNumLocalVariables(md);
+            totalLoc += metrics.getLoc();
+            totalBranches += metrics.getNumBranches();
+            if (metrics.getNestingDepth() > maxNesting) maxNesting = metrics.getNestingDepth();
+            totalSmells += metrics.getNumCodeSmells();
+            totalVars += metrics.getNumLocalVariables();
         }
 
         int mainParams = mainRefactored.getParameters().size();
@@ -169,112 +158,4 @@ public class MetricsAnalyzerFromFile {
         writer.printf("%s (refactored system),%s,%d,%d,%d,%d,%d,%d%n",
                 mainRefactored.getNameAsString(), "Refactored_Aggregate", totalLoc, mainParams, totalBranches, maxNesting, totalSmells, totalVars);
     }
-
-    // ... (tutti i metodi di calcolo delle metriche rimangono invariati) ...
-
-    private static int calculateLOC(MethodDeclaration md) {
-        if (md.getBody().isPresent()) {
-            String[] lines = md.getBody().get().toString().split("\r\n|\r|\n");
-            boolean inMultiLineComment = false;
-            int locCount = 0;
-
-            for (String line : lines) {
-                String trimmedLine = line.trim();
-
-                if (trimmedLine.startsWith("/*")) {
-                    inMultiLineComment = true;
-                    if (trimmedLine.endsWith("*/") && trimmedLine.length() > 2) {
-                        inMultiLineComment = false;
-                    }
-                    continue;
-                }
-
-                if (trimmedLine.endsWith("*/")) {
-                    inMultiLineComment = false;
-                    continue;
-                }
-
-                if (inMultiLineComment) {
-                    continue;
-                }
-
-                if (!trimmedLine.isEmpty() &&
-                        !trimmedLine.startsWith("//") &&
-                        !(trimmedLine.equals("{") || trimmedLine.equals("}"))) {
-                    locCount++;
-                }
-            }
-            return locCount;
-        }
-        return 0;
-    }
-
-
-    private static int calculateNumBranches(MethodDeclaration md) {
-        if (!md.getBody().isPresent()) return 0;
-        int branches = 0;
-        branches += md.findAll(IfStmt.class).size();
-        branches += md.findAll(ConditionalExpr.class).size();
-        branches += md.findAll(ForStmt.class).size();
-        branches += md.findAll(ForEachStmt.class).size();
-        branches += md.findAll(WhileStmt.class).size();
-        branches += md.findAll(DoStmt.class).size();
-        for (SwitchStmt switchStmt : md.findAll(SwitchStmt.class)) {
-            branches += switchStmt.getEntries().size();
-        }
-        branches += md.findAll(CatchClause.class).size();
-        return branches;
-    }
-
-    private static int calculateNestingDepth(MethodDeclaration md) {
-        NestingDepthVisitor nestingVisitor = new NestingDepthVisitor();
-        if (!md.getBody().isPresent()) return 0;
-        nestingVisitor.reset();
-        md.getBody().get().accept(nestingVisitor, null);
-        return nestingVisitor.getMaxDepth();
-    }
-
-    private static int calculateNumLocalVariables(MethodDeclaration md) {
-        if (!md.getBody().isPresent()) return 0;
-        return md.getBody().get().findAll(VariableDeclarator.class).size();
-    }
-
-    private static int calculateCodeSmells(MethodDeclaration md, int cyclomaticComplexity, int loc, int nestingDepth, int numParameters) {
-        if (!md.getBody().isPresent()) return 0;
-        int smellCount = 0;
-        BlockStmt body = md.getBody().get();
-
-        if (cyclomaticComplexity > 7) smellCount++;
-        if (loc > 30) smellCount++;
-        if (nestingDepth > 4) smellCount++;
-        if (numParameters > 5) smellCount++;
-
-        for (SwitchStmt switchStmt : body.findAll(SwitchStmt.class)) {
-            if (switchStmt.getEntries().stream().noneMatch(entry -> entry.getLabels().isEmpty())) {
-                smellCount++;
-            }
-        }
-        for (CatchClause catchClause : body.findAll(CatchClause.class)) {
-            if (catchClause.getBody().getStatements().isEmpty()) {
-                smellCount++;
-            }
-        }
-        if (body.findAll(InstanceOfExpr.class).size() > 2) {
-            smellCount++;
-        }
-        String methodName = md.getNameAsString();
-        if (methodName.equals("equals") || methodName.equals("hashCode") || methodName.equals("toString")) {
-            if (md.getAnnotations().stream().noneMatch(a -> a.getNameAsString().equals("Override"))) {
-                smellCount++;
-            }
-        }
-        long magicNumberCount = body.findAll(IntegerLiteralExpr.class).stream()
-                .filter(n -> { try { int val = n.asInt(); return val != 0 && val != 1 && val != -1; } catch (Exception e) { return true; } })
-                .filter(n -> n.getParentNode().map(p -> !(p instanceof VariableDeclarator)).orElse(true))
-                .count();
-        if (magicNumberCount > 1) {
-            smellCount++;
-        }
-        return smellCount;
-    }
-}
\ No newline at end of file
+}
@@ -2,8 +2,6 @@ package controller;
 
 import model.Release;
 import model.Ticket;
-import utils.JiraUtils;
-import utils.MathUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -20,13 +18,6 @@ public class Proportion {
     static final int MIN_PROPORTIONS_FOR_MOVING_WINDOW = 10;
     static final int MOVING_WINDOW_SIZE = 5;
 
-    private enum Projects {
-        AVRO,
-        SYNCOPE,
-        STORM,
-        ZOOKEEPER
-    }
-
     public Proportion(){
         this.proportionList = new ArrayList<>();
         this.totalProportion = 0;
@@ -39,7 +30,7 @@ public class Proportion {
 
         //calculate proportion
         //if we have less than 5 ticket of which we know the proportion, use cold start
-        if(proportionList.size() < MIN_PROPORTIONS_FOR_INCREMENT){
+        if(usesColdStart()){
             proportion = coldStart(ticket.getResolutionDate());
         }else{ //otherwise use increment
             proportion = increment();
@@ -49,6 +40,11 @@ public class Proportion {
         estimatedIV = obtainIV(proportion, ticket);
 
         //set the estimated IV of the ticket
+        setEstimatedIV(ticket, estimatedIV, releasesList);
+    }
+
+    // imposta come IV, e come prima AV, la release con l'id stimato (anche quando la stima viene da un'esecuzione precedente)
+    public void setEstimatedIV(Ticket ticket, int estimatedIV, List<Release> releasesList) {
         for(Release release : releasesList){
             if(estimatedIV == release.getId()){
                 ticket.setIv(release);
@@ -57,10 +53,23 @@ public class Proportion {
         }
     }
 
+    // true se la prossima stima userà il cold start, cioè i progetti di riferimento
+    public boolean usesColdStart() {
+        return proportionList.size() < MIN_PROPORTIONS_FOR_INCREMENT;
+    }
+
     // method to calculate proportion on ticket with IV set and add P value to a list
     public void addProportion(Ticket ticket) {
+        float proportion = computeProportion(ticket);
+
+        //add proportion to the list
+        this.proportionList.add(proportion);
+        this.totalProportion += proportion;
+
+    }
+
+    static float computeProportion(Ticket ticket) {
         int denominator;
-        float proportion;
         int ov = ticket.getOv().getId();
         int fv = ticket.getFv().getId();
 
@@ -70,12 +79,7 @@ public class Proportion {
         }else{
             denominator = fv-ov;
         }
-        proportion = (float)(fv - ticket.getIv().getId())/denominator;
-
-        //add proportion to the list
-        this.proportionList.add(proportion);
-        this.totalProportion += proportion;
-
+        return (float)(fv - ticket.getIv().getId())/denominator;
     }
 
     //use method increment by computing p as the average among the defects fixed in previous versions
@@ -83,31 +87,9 @@ public class Proportion {
         return this.totalProportion / this.proportionList.size();
     }
 
+    // use cold start method: the proportions of the reference projects are downloaded only once
     private float coldStart(LocalDate resolutionDate) throws IOException {
-
-        List<Float> proportionListTemp = new ArrayList<>();
-
-        for(Projects project: Projects.values()){
-            //extract releases and tickets
-            JiraDataExtractor jiraExtractor = new JiraDataExtractor(project.toString().toUpperCase());
-            List<Release> releaseList = jiraExtractor.getReleases();
-            List<Ticket> allTickets = jiraExtractor.getFinalTickets(releaseList, false);
-
-            //need to obtain all tickets that have AV set
-            List<Ticket> consistentTickets = JiraUtils.returnConsistentTickets(allTickets, resolutionDate);
-            // if the consistent tickets are more than 5, add ticket to proportion and to a temporary list
-            if(consistentTickets.size() >= 5){
-
-                Proportion proportion = new Proportion();
-                for(Ticket t: consistentTickets){
-                    proportion.addProportion(t);
-                }
-                proportionListTemp.add(proportion.increment());
-            }
-        }
-
-        // use cold start method, by computing the median among other projects
-        return MathUtils.median(proportionListTemp);
+        return ColdStartProportion.getInstance().estimate(resolutionDate);
     }
 
     private int obtainIV(float proportion, Ticket ticket){
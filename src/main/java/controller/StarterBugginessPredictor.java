@@ -1,13 +1,19 @@
 package controller;
 
-import model.JavaMethod;
+import model.CommitTable;
+import model.MethodTable;
 import model.Release;
 import model.Ticket;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.revwalk.RevCommit;
+import utils.JiraPageFetcher;
+import utils.JiraResponseCache;
+import utils.JiraUtils;
+import utils.MiningCache;
 import utils.PrintUtils;
+import utils.SourcePathFilter;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Scanner;
 import java.util.logging.Level;
@@ -17,11 +23,29 @@ public class StarterBugginessPredictor {
 
     static String choiceString = "Inserisci la tua scelta (1 o 2): ";
     static String notValid = "Scelta non valida. Riprova.";
+    // Numero di thread usati per l'estrazione dei metodi in Fase 1 (1 = sequenziale)
+    static final int MINING_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // Metriche dei metodi in un file mappato in cacheFiles/ invece che nell'heap, per i repository molto grandi
+    static final boolean SPILL_METHOD_METRICS = false;
+    // File analizzati in Fase 1, es. new SourcePathFilter(".java", "test", "generated") per escludere anche il codice generato
+    static final SourcePathFilter SOURCE_FILTER = SourcePathFilter.JAVA_SOURCES;
+    // Risposte di Jira salvate in cacheFiles/jira/ (eliminare la cartella per riscaricarle); REPLAY lavora senza rete
+    static final JiraResponseCache.Mode JIRA_CACHE_MODE = JiraResponseCache.Mode.RECORD;
+    // Pagine della ricerca dei ticket scaricate contemporaneamente, con i tentativi e l'attesa iniziale prima di riprovare
+    static final int JIRA_FETCH_PARALLELISM = 4;
+    static final int JIRA_FETCH_ATTEMPTS = 3;
+    static final long JIRA_RETRY_BACKOFF_MS = 500;
+    // Ticket tenuti in cacheFiles/<progetto>/jiraTickets.bin: a ogni esecuzione si scaricano solo quelli aggiornati
+    // (release e ticket vengono allora sempre letti da Jira, senza passare da JIRA_CACHE_MODE)
+    static final boolean JIRA_INCREMENTAL_SYNC = true;
 
     private static final Logger LOGGER = Logger.getLogger(StarterBugginessPredictor.class.getName());
 
     public static void main(String[] args) {
 
+        JiraUtils.setResponseCache(JiraResponseCache.open(JIRA_CACHE_MODE));
+        JiraUtils.setPageFetcher(new JiraPageFetcher(JIRA_FETCH_PARALLELISM, JIRA_FETCH_ATTEMPTS, JIRA_RETRY_BACKOFF_MS));
+        JiraUtils.setIncrementalTicketSync(JIRA_INCREMENTAL_SYNC);
         Scanner scanner = new Scanner(System.in);
 
         // 1. PRIMO PASSO: Scelta obbligatoria del progetto
@@ -184,52 +208,72 @@ public class StarterBugginessPredictor {
         PrintUtils.Console.info(projectName + ": " + ticketList.size() + " tickets extracted.");
 
         GitDataExtractor gitExtractor = new GitDataExtractor(projectName, fullReleaseList, ticketList);
-        List<RevCommit> allCommits = gitExtractor.getAllCommitsAndAssignToReleases();
+        gitExtractor.setParallelism(MINING_PARALLELISM);
+        gitExtractor.setSourceFilter(SOURCE_FILTER);
+        if (SPILL_METHOD_METRICS) {
+            gitExtractor.setMethodSpillFile(Paths.get("cacheFiles", projectName.toLowerCase(), "methodMetrics.bin"));
+        }
+        CommitTable allCommits = gitExtractor.getAllCommitsAndAssignToReleases();
         PrintUtils.Console.info(projectName + ": Commits assigned to releases.");
 
         gitExtractor.filterCommitsOfIssues();
         ticketList = gitExtractor.getTicketList();
         PrintUtils.Console.info(projectName + ": Commits filtered by ticket IDs.");
 
-        List<JavaMethod> allMethods = gitExtractor.getMethodsFromReleases();
-        PrintUtils.Console.info(projectName + ": " + allMethods.size() + " method entries extracted.");
-
-        PrintUtils.Console.info("Labeling method bugginess...");
-        gitExtractor.setMethodBuggyness(allMethods);
-
-        // --- INIZIO NUOVA PARTE: Stampe di Report Intermedi ---
-        PrintUtils.Console.info("\n--- Generating Intermediate Report Files ---");
+        MethodTable allMethods = null;
+        // La tabella dei metodi può essere mappata su file: va chiusa anche se una fase fallisce
         try {
-            // Stampa la lista di tutte le release analizzate con i loro dettagli
-            PrintUtils.printReleases(projectName, gitExtractor.getReleaseList(), "AnalyzedReleases.csv");
-            PrintUtils.Console.info(projectName + ": Report 'AnalyzedReleases.csv' created.");
+            // I risultati del mining restano in cacheFiles/: una nuova esecuzione analizza solo i commit e i blob nuovi
+            try (MiningCache miningCache = MiningCache.open(projectName, SOURCE_FILTER)) {
+                gitExtractor.setMiningCache(miningCache);
+                allMethods = gitExtractor.getMethodsFromReleases();
+                PrintUtils.Console.info(projectName + ": " + allMethods.size() + " method entries extracted.");
+
+                PrintUtils.Console.info("Labeling method bugginess...");
+                gitExtractor.setMethodBuggyness(allMethods);
+                gitExtractor.setMiningCache(null);
+            }
 
-            // Stampa la lista di tutti i ticket con i loro dettagli
-            PrintUtils.printTickets(projectName, ticketList);
-            PrintUtils.Console.info(projectName + ": Report 'AllTickets.csv' created.");
+            // --- INIZIO NUOVA PARTE: Stampe di Report Intermedi ---
+            PrintUtils.Console.info("\n--- Generating Intermediate Report Files ---");
+            try {
+                // Stampa la lista di tutte le release analizzate con i loro dettagli
+                PrintUtils.printReleases(projectName, gitExtractor.getReleaseList(), "AnalyzedReleases.csv");
+                PrintUtils.Console.info(projectName + ": Report 'AnalyzedReleases.csv' created.");
 
-            // Stampa la lista di tutti i commit
-            PrintUtils.printCommits(projectName, allCommits, "AllCommits.csv");
-            PrintUtils.Console.info(projectName + ": Report 'AllCommits.csv' created.");
+                // Stampa la lista di tutti i ticket con i loro dettagli
+                PrintUtils.printTickets(projectName, ticketList);
+                PrintUtils.Console.info(projectName + ": Report 'AllTickets.csv' created.");
 
-            // Stampa una vista semplificata dei metodi (opzionale, ma può essere utile)
-            PrintUtils.printMethods(projectName, allMethods, "AllMethods.csv");
-            PrintUtils.Console.info(projectName + ": Report 'AllMethods.csv' created.");
+                // Stampa la lista di tutti i commit
+                PrintUtils.printCommits(projectName, allCommits, "AllCommits.csv");
+                PrintUtils.Console.info(projectName + ": Report 'AllCommits.csv' created.");
 
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE,"Error while generating intermediate report files: {0}", e.getMessage());
-        }
+                // Stampa una vista semplificata dei metodi (opzionale, ma può essere utile)
+                PrintUtils.printMethods(projectName, allMethods, allCommits, "AllMethods.csv");
+                PrintUtils.Console.info(projectName + ": Report 'AllMethods.csv' created.");
 
-        PrintUtils.Console.info("\nCreating the final dataset for Weka...");
-        PrintUtils.printMethodsDataset(projectName, allMethods);
-        PrintUtils.Console.info(projectName + ": Dataset CSV created successfully.");
-        PrintUtils.Console.info("--- Phase 1 Complete ---");
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE,"Error while generating intermediate report files: {0}", e.getMessage());
+            }
 
-        // --- FASE 2: WEKA CLASSIFICATION ---
-        PrintUtils.Console.info("\n--- Phase 2: Weka Classification ---");
-        WekaClassification wekaAnalysis = new WekaClassification(projectName, allMethods);
-        wekaAnalysis.execute();
-        PrintUtils.Console.info("--- Phase 2 Complete ---");
+            PrintUtils.Console.info("\nCreating the final dataset for Weka...");
+            PrintUtils.printMethodsDataset(projectName, allMethods);
+            PrintUtils.Console.info(projectName + ": Dataset CSV created successfully.");
+            PrintUtils.Console.info(projectName + ": Blob metrics cache " + gitExtractor.getBlobCacheHits() + " hits, "
+                    + gitExtractor.getBlobCacheMisses() + " misses.");
+            PrintUtils.Console.info("--- Phase 1 Complete ---");
+
+            // --- FASE 2: WEKA CLASSIFICATION ---
+            PrintUtils.Console.info("\n--- Phase 2: Weka Classification ---");
+            WekaClassification wekaAnalysis = new WekaClassification(projectName, allMethods);
+            wekaAnalysis.execute();
+            PrintUtils.Console.info("--- Phase 2 Complete ---");
+        } finally {
+            if (allMethods != null) {
+                allMethods.close();
+            }
+        }
 
         PrintUtils.Console.info("\n==================================================");
         PrintUtils.Console.info("ANALYSIS FOR " + projectName.toUpperCase() + " FINISHED");
@@ -2,7 +2,7 @@ package controller;
 
 import model.AcumeMethod;
 import model.ClassifierEvaluation;
-import model.JavaMethod;
+import model.MethodTable;
 import model.WekaClassifier;
 import utils.PrintUtils;
 import utils.PrintUtils.Console;
@@ -20,24 +20,24 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class WekaClassification {
 
     private static final Logger LOGGER = Logger.getLogger(WekaClassification.class.getName());
     private final String projectName;
-    private final List<JavaMethod> allMethods;
+    private final MethodTable allMethods;
 
     private final List<ClassifierEvaluation> cvEvaluationResults;
     private final List<ClassifierEvaluation> temporalEvaluationResults;
 
-    public WekaClassification(String projectName, List<JavaMethod> allMethods) {
+    public WekaClassification(String projectName, MethodTable allMethods) {
         LOGGER.setLevel(Level.SEVERE);
         this.projectName = projectName;
         this.allMethods = allMethods;
@@ -81,10 +81,7 @@ public class WekaClassification {
 
     private void prepareCrossValidationData(int numRuns, int numFolds) throws IOException {
         Console.info("Preparing data for cross-validation...");
-        List<JavaMethod> methodsForCv;
-        methodsForCv = this.allMethods;
-
-        Instances fullDataset = WekaUtils.buildInstances(methodsForCv, projectName + "_full");
+        Instances fullDataset = WekaUtils.buildInstances(this.allMethods, projectName + "_full");
         fullDataset.setClassIndex(fullDataset.numAttributes() - 1);
         ArffSaver saver = new ArffSaver();
         for (int run = 1; run <= numRuns; run++) {
@@ -109,23 +106,20 @@ public class WekaClassification {
 
     private int prepareTemporalData() throws IOException {
         Console.info("Preparing data for temporal validation...");
-        int numReleases = (int) allMethods.stream().map(m -> m.getRelease().getId()).distinct().count();
+        BitSet releaseIds = new BitSet();
+        for (int row = 0; row < allMethods.size(); row++) {
+            releaseIds.set(allMethods.getReleaseId(row));
+        }
+        int numReleases = releaseIds.cardinality();
         int lastIteration = 0;
         for (int i = 1; i < numReleases; i++) {
-            final int currentReleaseId = i;
-            List<JavaMethod> trainingMethods;
-            if ("SYNCOPE".equalsIgnoreCase(this.projectName)) {
-                final int windowSize = 5;
-                trainingMethods = allMethods.stream().filter(m -> m.getRelease().getId() > currentReleaseId - windowSize && m.getRelease().getId() <= currentReleaseId).collect(Collectors.toList());
-            } else {
-                trainingMethods = allMethods.stream().filter(m -> m.getRelease().getId() <= currentReleaseId).collect(Collectors.toList());
-            }
-            List<JavaMethod> testingMethods = allMethods.stream().filter(m -> m.getRelease().getId() == currentReleaseId + 1).collect(Collectors.toList());
-            if (trainingMethods.isEmpty() || testingMethods.isEmpty()) continue;
+            // Training: release <= i (finestra delle ultime 5 per SYNCOPE); testing: release i + 1
+            int firstTrainingRelease = "SYNCOPE".equalsIgnoreCase(this.projectName) ? i - 5 + 1 : Integer.MIN_VALUE;
+            Instances trainingSet = WekaUtils.buildInstances(allMethods, firstTrainingRelease, i, "training");
+            Instances testingSet = WekaUtils.buildInstances(allMethods, i + 1, i + 1, "testing");
+            if (trainingSet.isEmpty() || testingSet.isEmpty()) continue;
             String iterDir = String.format("arffFiles/%s/temporal/iteration_%d", projectName.toLowerCase(), i);
             Files.createDirectories(Paths.get(iterDir));
-            Instances trainingSet = WekaUtils.buildInstances(trainingMethods, "training");
-            Instances testingSet = WekaUtils.buildInstances(testingMethods, "testing");
             ArffSaver saver = new ArffSaver();
             saver.setInstances(trainingSet);
             saver.setFile(new File(iterDir + "/training.arff"));
@@ -0,0 +1,32 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Lista compatta di commit, memorizzati come indici nella CommitTable, nell'ordine in cui vengono aggiunti.
+ * Le liste vuote non allocano nulla: la maggior parte dei metodi è toccata da pochi commit.
+ */
+public class CommitList {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] commits = EMPTY;
+    private int size;
+
+    public void add(int commit) {
+        if (size == commits.length) {
+            commits = Arrays.copyOf(commits, Math.max(4, size * 2));
+        }
+        commits[size++] = commit;
+    }
+
+    public int get(int i) {
+        if (i >= size) throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        return commits[i];
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    // Ultimo commit aggiunto, o -1 se la lista è vuota
+    public int last() { return size == 0 ? -1 : commits[size - 1]; }
+}
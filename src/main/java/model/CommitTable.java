@@ -0,0 +1,135 @@
+package model;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabella a colonne di tutti i commit del repository: ogni commit è identificato dalla sua posizione
+ * (dopo sortByCommitTime, in ordine di data). Per ogni commit si conservano id, albero, albero del primo
+ * genitore, data, autore e committer (come indici in una tabella di nomi) e le chiavi dei ticket citate nel
+ * messaggio. Release, ticket e metodi riferiscono i commit con indici int invece che con oggetti.
+ */
+public class CommitTable {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final String[] NO_TICKET_KEYS = new String[0];
+
+    private ObjectId[] ids = new ObjectId[INITIAL_CAPACITY];
+    private ObjectId[] treeIds = new ObjectId[INITIAL_CAPACITY];
+    private ObjectId[] parentTreeIds = new ObjectId[INITIAL_CAPACITY]; // null se il commit non ha genitori
+    private int[] commitTimes = new int[INITIAL_CAPACITY]; // secondi dall'epoch, come RevCommit.getCommitTime()
+    private int[] epochDays = new int[INITIAL_CAPACITY]; // data del commit nel fuso orario locale
+    private int[] authorIds = new int[INITIAL_CAPACITY];
+    private int[] committerIds = new int[INITIAL_CAPACITY];
+    private String[][] ticketKeys = new String[INITIAL_CAPACITY][];
+    private int size;
+
+    private final List<String> personNames = new ArrayList<>();
+    private final Map<String, Integer> personIds = new HashMap<>();
+
+    /**
+     * Aggiunge un commit in fondo alla tabella e ne restituisce l'indice.
+     */
+    public int add(ObjectId id, ObjectId treeId, ObjectId parentTreeId, int commitTime,
+                   String authorName, String committerName, List<String> keys) {
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size] = id;
+        treeIds[size] = treeId;
+        parentTreeIds[size] = parentTreeId;
+        commitTimes[size] = commitTime;
+        epochDays[size] = (int) Instant.ofEpochSecond(commitTime).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+        authorIds[size] = getPersonId(authorName);
+        committerIds[size] = getPersonId(committerName);
+        ticketKeys[size] = keys.isEmpty() ? NO_TICKET_KEYS : keys.toArray(new String[0]);
+        return size++;
+    }
+
+    /**
+     * Ordina i commit per data (ordinamento stabile): va chiamato prima di distribuire gli indici.
+     */
+    public void sortByCommitTime() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> commitTimes[i]));
+
+        ObjectId[] sortedIds = new ObjectId[ids.length];
+        ObjectId[] sortedTreeIds = new ObjectId[ids.length];
+        ObjectId[] sortedParentTreeIds = new ObjectId[ids.length];
+        int[] sortedCommitTimes = new int[ids.length];
+        int[] sortedEpochDays = new int[ids.length];
+        int[] sortedAuthorIds = new int[ids.length];
+        int[] sortedCommitterIds = new int[ids.length];
+        String[][] sortedTicketKeys = new String[ids.length][];
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            sortedIds[i] = ids[from];
+            sortedTreeIds[i] = treeIds[from];
+            sortedParentTreeIds[i] = parentTreeIds[from];
+            sortedCommitTimes[i] = commitTimes[from];
+            sortedEpochDays[i] = epochDays[from];
+            sortedAuthorIds[i] = authorIds[from];
+            sortedCommitterIds[i] = committerIds[from];
+            sortedTicketKeys[i] = ticketKeys[from];
+        }
+        ids = sortedIds;
+        treeIds = sortedTreeIds;
+        parentTreeIds = sortedParentTreeIds;
+        commitTimes = sortedCommitTimes;
+        epochDays = sortedEpochDays;
+        authorIds = sortedAuthorIds;
+        committerIds = sortedCommitterIds;
+        ticketKeys = sortedTicketKeys;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public ObjectId getId(int commit) { return ids[commit]; }
+    public String getName(int commit) { return ids[commit].getName(); }
+    public ObjectId getTreeId(int commit) { return treeIds[commit]; }
+    public ObjectId getParentTreeId(int commit) { return parentTreeIds[commit]; }
+    public boolean hasParent(int commit) { return parentTreeIds[commit] != null; }
+    public int getCommitTime(int commit) { return commitTimes[commit]; }
+    public long getEpochDay(int commit) { return epochDays[commit]; }
+    public LocalDate getCommitDate(int commit) { return LocalDate.ofEpochDay(epochDays[commit]); }
+    public int getAuthorId(int commit) { return authorIds[commit]; }
+    public String getAuthorName(int commit) { return personNames.get(authorIds[commit]); }
+    public String getCommitterName(int commit) { return personNames.get(committerIds[commit]); }
+    public List<String> getTicketKeys(int commit) {
+        String[] keys = ticketKeys[commit];
+        return keys.length == 0 ? Collections.emptyList() : Arrays.asList(keys);
+    }
+
+    // Autori e committer condividono la stessa tabella di nomi
+    private int getPersonId(String name) {
+        Integer id = personIds.get(name);
+        if (id == null) {
+            id = personNames.size();
+            personNames.add(name);
+            personIds.put(name, id);
+        }
+        return id;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        treeIds = Arrays.copyOf(treeIds, capacity);
+        parentTreeIds = Arrays.copyOf(parentTreeIds, capacity);
+        commitTimes = Arrays.copyOf(commitTimes, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        authorIds = Arrays.copyOf(authorIds, capacity);
+        committerIds = Arrays.copyOf(committerIds, capacity);
+        ticketKeys = Arrays.copyOf(ticketKeys, capacity);
+    }
+}
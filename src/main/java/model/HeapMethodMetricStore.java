@@ -0,0 +1,61 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Metriche tenute in heap: una colonna di interi per campo più quella del churn medio, indicizzate per riga.
+ */
+class HeapMethodMetricStore implements MethodMetricStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[][] columns = new int[INT_FIELDS][INITIAL_CAPACITY];
+    private double[] avgChurn = new double[INITIAL_CAPACITY];
+
+    @Override
+    public long slotOf(int row, int fqnId, int releaseId) {
+        return row;
+    }
+
+    @Override
+    public void ensureCapacity(long slots) {
+        int capacity = avgChurn.length;
+        if (slots <= capacity) return;
+        while (capacity < slots) {
+            capacity *= 2;
+        }
+        for (int field = 0; field < INT_FIELDS; field++) {
+            columns[field] = Arrays.copyOf(columns[field], capacity);
+        }
+        avgChurn = Arrays.copyOf(avgChurn, capacity);
+    }
+
+    @Override
+    public int getInt(long slot, int field) { return columns[field][(int) slot]; }
+    @Override
+    public void setInt(long slot, int field, int value) { columns[field][(int) slot] = value; }
+    @Override
+    public double getAvgChurn(long slot) { return avgChurn[(int) slot]; }
+    @Override
+    public void setAvgChurn(long slot, double value) { avgChurn[(int) slot] = value; }
+
+    @Override
+    public void reorder(int[] order) {
+        for (int field = 0; field < INT_FIELDS; field++) {
+            int[] sorted = new int[columns[field].length];
+            for (int i = 0; i < order.length; i++) {
+                sorted[i] = columns[field][order[i]];
+            }
+            columns[field] = sorted;
+        }
+        double[] sortedAvgChurn = new double[avgChurn.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedAvgChurn[i] = avgChurn[order[i]];
+        }
+        avgChurn = sortedAvgChurn;
+    }
+
+    @Override
+    public void close() {
+        // Niente da rilasciare
+    }
+}
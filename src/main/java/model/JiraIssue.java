@@ -0,0 +1,52 @@
+package model;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Campi di un bug di Jira così come restituiti dalla ricerca, da cui si costruisce il Ticket una volta note le release.
+ * Stato e risoluzione sono presenti solo se richiesti (sincronizzazione incrementale), altrimenti sono null.
+ */
+public class JiraIssue {
+    private final String key;
+    private final String created;
+    private final String resolutionDate;
+    private final List<String> versionNames;
+    private final String status;
+    private final String resolution;
+
+    public JiraIssue(String key, String created, String resolutionDate, List<String> versionNames) {
+        this(key, created, resolutionDate, versionNames, null, null);
+    }
+
+    public JiraIssue(String key, String created, String resolutionDate, List<String> versionNames, String status, String resolution) {
+        this.key = key;
+        this.created = created;
+        this.resolutionDate = resolutionDate;
+        this.versionNames = versionNames;
+        this.status = status;
+        this.resolution = resolution;
+    }
+
+    public String getKey() { return key; }
+    public String getCreated() { return created; }
+    public String getResolutionDate() { return resolutionDate; }
+    public List<String> getVersionNames() { return versionNames; }
+    public String getStatus() { return status; }
+    public String getResolution() { return resolution; }
+
+    // Due issue sono uguali se danno lo stesso Ticket: stato e risoluzione non contano
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof JiraIssue)) return false;
+        JiraIssue other = (JiraIssue) o;
+        return key.equals(other.key) && created.equals(other.created)
+                && resolutionDate.equals(other.resolutionDate) && versionNames.equals(other.versionNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, created, resolutionDate, versionNames);
+    }
+}
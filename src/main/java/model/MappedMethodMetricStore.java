@@ -0,0 +1,99 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metriche tenute fuori dall'heap in un file mappato in memoria, con un record da 64 byte per ogni coppia
+ * (fqnId, releaseId): lo slot è fqnId * numReleases + (releaseId - 1), quindi i record non si spostano
+ * quando la tabella viene riordinata. Il file è mappato a segmenti per restare sotto il limite di 2 GB
+ * di un singolo buffer e cresce man mano che si aggiungono FQN.
+ * La chiusura non libera la memoria mappata: Java non permette di rimuovere una mappatura in modo
+ * esplicito, quindi i segmenti restano mappati finché il garbage collector non raccoglie i buffer.
+ * Il file viene eliminato alla chiusura del canale (DELETE_ON_CLOSE) dove il sistema lo consente:
+ * su Windows un file ancora mappato non può essere eliminato e resta su disco, per cui viene
+ * troncato e riusato (TRUNCATE_EXISTING) all'esecuzione successiva.
+ */
+class MappedMethodMetricStore implements MethodMetricStore {
+    private static final int RECORD_LENGTH = 64;
+    private static final int AVG_CHURN_OFFSET = INT_FIELDS * Integer.BYTES;
+    private static final int RECORDS_PER_SEGMENT = 1 << 20; // 64 MB per segmento
+    private static final long SEGMENT_LENGTH = (long) RECORDS_PER_SEGMENT * RECORD_LENGTH;
+
+    private final FileChannel channel;
+    private final int numReleases;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    MappedMethodMetricStore(Path file, int numReleases) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        this.numReleases = numReleases;
+    }
+
+    @Override
+    public long slotOf(int row, int fqnId, int releaseId) {
+        return (long) fqnId * numReleases + (releaseId - 1);
+    }
+
+    @Override
+    public void ensureCapacity(long slots) {
+        try {
+            while ((long) segments.size() * RECORDS_PER_SEGMENT < slots) {
+                // La mappatura oltre la fine del file lo estende con record a zero
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, segments.size() * SEGMENT_LENGTH, SEGMENT_LENGTH));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible to extend the method metrics file", e);
+        }
+    }
+
+    @Override
+    public int getInt(long slot, int field) {
+        return segment(slot).getInt(offset(slot) + field * Integer.BYTES);
+    }
+
+    @Override
+    public void setInt(long slot, int field, int value) {
+        segment(slot).putInt(offset(slot) + field * Integer.BYTES, value);
+    }
+
+    @Override
+    public double getAvgChurn(long slot) {
+        return segment(slot).getDouble(offset(slot) + AVG_CHURN_OFFSET);
+    }
+
+    @Override
+    public void setAvgChurn(long slot, double value) {
+        segment(slot).putDouble(offset(slot) + AVG_CHURN_OFFSET, value);
+    }
+
+    @Override
+    public void reorder(int[] order) {
+        // I record sono indirizzati per (fqnId, releaseId): basta riordinare le chiavi nella tabella
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Toglie solo i riferimenti ai buffer: la memoria resta mappata finché il garbage collector non li raccoglie
+        segments.clear();
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(long slot) {
+        return segments.get((int) (slot / RECORDS_PER_SEGMENT));
+    }
+
+    private static int offset(long slot) {
+        return (int) (slot % RECORDS_PER_SEGMENT) * RECORD_LENGTH;
+    }
+}
@@ -0,0 +1,24 @@
+package model;
+
+/**
+ * Modifica a un metodo introdotta da un commit: FQN del metodo, LOC prima e dopo il commit e hash del nuovo corpo.
+ */
+public class MethodChange {
+    private final String fullyQualifiedName;
+    private final int oldLoc; // -1 se il metodo è stato aggiunto dal commit
+    private final int newLoc;
+    private final long bodyHash;
+
+    public MethodChange(String fullyQualifiedName, int oldLoc, int newLoc, long bodyHash) {
+        this.fullyQualifiedName = fullyQualifiedName;
+        this.oldLoc = oldLoc;
+        this.newLoc = newLoc;
+        this.bodyHash = bodyHash;
+    }
+
+    public boolean isAdded() { return oldLoc < 0; }
+    public String getFullyQualifiedName() { return fullyQualifiedName; }
+    public int getOldLoc() { return oldLoc; }
+    public int getNewLoc() { return newLoc; }
+    public long getBodyHash() { return bodyHash; }
+}
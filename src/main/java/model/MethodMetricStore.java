@@ -0,0 +1,38 @@
+package model;
+
+import java.io.Closeable;
+
+/**
+ * Memoria delle metriche delle righe di una MethodTable: ogni riga occupa un record a larghezza fissa
+ * di campi interi più la media del churn. Il record di una riga è individuato da {@link #slotOf}.
+ */
+interface MethodMetricStore extends Closeable {
+    int LOC = 0;
+    int NUM_PARAMETERS = 1;
+    int NUM_BRANCHES = 2;
+    int NESTING_DEPTH = 3;
+    int NUM_CODE_SMELLS = 4;
+    int NUM_LOCAL_VARIABLES = 5;
+    int NUM_REVISIONS = 6;
+    int NUM_AUTHORS = 7;
+    int TOTAL_STMT_ADDED = 8;
+    int TOTAL_STMT_DELETED = 9;
+    int MAX_CHURN = 10;
+    int FIRST_COMMIT = 11;
+    int HAS_FIX_HISTORY = 12;
+    int BUGGY = 13;
+    int INT_FIELDS = 14;
+
+    // Posizione del record della riga, ricavata dall'indice di riga o dalla coppia (fqnId, releaseId)
+    long slotOf(int row, int fqnId, int releaseId);
+
+    void ensureCapacity(long slots);
+
+    int getInt(long slot, int field);
+    void setInt(long slot, int field, int value);
+    double getAvgChurn(long slot);
+    void setAvgChurn(long slot, double value);
+
+    // Riordina i record indirizzati per riga (vedi MethodTable.reorder)
+    void reorder(int[] order);
+}
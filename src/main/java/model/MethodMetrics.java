@@ -0,0 +1,44 @@
+package model;
+
+/**
+ * Metriche statiche di un singolo metodo, calcolate dal contenuto di un file Java.
+ * Non dipendono dal percorso del file né dalla release, quindi possono essere
+ * riutilizzate per ogni release in cui lo stesso blob compare invariato.
+ */
+public class MethodMetrics {
+    private final String signature;
+    private final int loc;
+    private final int numParameters;
+    private final int numBranches;
+    private final int nestingDepth;
+    private final int numCodeSmells;
+    private final int numLocalVariables;
+
+    public MethodMetrics(String signature, int loc, int numParameters, int numBranches, int nestingDepth, int numCodeSmells, int numLocalVariables) {
+        this.signature = signature;
+        this.loc = loc;
+        this.numParameters = numParameters;
+        this.numBranches = numBranches;
+        this.nestingDepth = nestingDepth;
+        this.numCodeSmells = numCodeSmells;
+        this.numLocalVariables = numLocalVariables;
+    }
+
+    // Copia le metriche statiche nella riga metodo-release
+    public void applyTo(MethodTable methods, int row) {
+        methods.setLoc(row, loc);
+        methods.setNumParameters(row, numParameters);
+        methods.setNumBranches(row, numBranches);
+        methods.setNestingDepth(row, nestingDepth);
+        methods.setNumCodeSmells(row, numCodeSmells);
+        methods.setNumLocalVariables(row, numLocalVariables);
+    }
+
+    public String getSignature() { return signature; }
+    public int getLoc() { return loc; }
+    public int getNumParameters() { return numParameters; }
+    public int getNumBranches() { return numBranches; }
+    public int getNestingDepth() { return nestingDepth; }
+    public int getNumCodeSmells() { return numCodeSmells; }
+    public int getNumLocalVariables() { return numLocalVariables; }
+}
@@ -0,0 +1,150 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static model.MethodMetricStore.*;
+
+/**
+ * Tabella a colonne delle istanze metodo-release: ogni riga è un metodo in una release. Gli FQN sono
+ * codificati con un dizionario (ogni FQN è memorizzato una sola volta e le righe ne contengono l'id) e le
+ * release sono memorizzate come id. Le metriche stanno in record a larghezza fissa, in heap (default) o
+ * in un file mappato in memoria indirizzato per (fqnId, releaseId), creato con {@link #mapped(Path, int)}.
+ */
+public class MethodTable implements Closeable {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final List<String> fqns = new ArrayList<>();
+    private final Map<String, Integer> fqnIds = new HashMap<>();
+
+    private int[] fqnIdColumn = new int[INITIAL_CAPACITY];
+    private int[] releaseIds = new int[INITIAL_CAPACITY];
+    private final MethodMetricStore metrics;
+    private int size;
+
+    public MethodTable() {
+        this(new HeapMethodMetricStore());
+    }
+
+    private MethodTable(MethodMetricStore metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Crea una tabella con le metriche in un file mappato in memoria, per i repository che non entrano nell'heap.
+     * La chiusura elimina il file dove il sistema lo consente, ma la memoria mappata viene rilasciata solo
+     * dal garbage collector (vedi MappedMethodMetricStore).
+     */
+    public static MethodTable mapped(Path file, int numReleases) throws IOException {
+        return new MethodTable(new MappedMethodMetricStore(file, numReleases));
+    }
+
+    /**
+     * Aggiunge una riga con le sole chiavi (metriche a zero) e ne restituisce l'indice.
+     */
+    public int addRow(String fullyQualifiedName, int releaseId) {
+        if (size == fqnIdColumn.length) {
+            fqnIdColumn = Arrays.copyOf(fqnIdColumn, size * 2);
+            releaseIds = Arrays.copyOf(releaseIds, size * 2);
+        }
+        Integer fqnId = fqnIds.get(fullyQualifiedName);
+        if (fqnId == null) {
+            fqnId = fqns.size();
+            fqns.add(fullyQualifiedName);
+            fqnIds.put(fullyQualifiedName, fqnId);
+        }
+        fqnIdColumn[size] = fqnId;
+        releaseIds[size] = releaseId;
+        long slot = metrics.slotOf(size, fqnId, releaseId);
+        metrics.ensureCapacity(slot + 1);
+        metrics.setInt(slot, FIRST_COMMIT, -1);
+        return size++;
+    }
+
+    /**
+     * Riordina le righe: la riga i diventa quella che prima era in posizione order[i].
+     */
+    public void reorder(int[] order) {
+        fqnIdColumn = permute(fqnIdColumn, order);
+        releaseIds = permute(releaseIds, order);
+        metrics.reorder(order);
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    @Override
+    public void close() throws IOException {
+        metrics.close();
+    }
+
+    // --- DIZIONARIO DEGLI FQN ---
+    public int getNumFqns() { return fqns.size(); }
+    public String getFqn(int fqnId) { return fqns.get(fqnId); }
+    // Id dell'FQN, o -1 se nessuna riga ha quell'FQN
+    public int getFqnId(String fullyQualifiedName) {
+        Integer fqnId = fqnIds.get(fullyQualifiedName);
+        return fqnId != null ? fqnId : -1;
+    }
+
+    // --- GETTERS E SETTERS PER RIGA ---
+    public int getFqnIdOf(int row) { return fqnIdColumn[row]; }
+    public String getFullyQualifiedName(int row) { return fqns.get(fqnIdColumn[row]); }
+    public int getReleaseId(int row) { return releaseIds[row]; }
+    public int getLoc(int row) { return getInt(row, LOC); }
+    public void setLoc(int row, int value) { setInt(row, LOC, value); }
+    public int getNumParameters(int row) { return getInt(row, NUM_PARAMETERS); }
+    public void setNumParameters(int row, int value) { setInt(row, NUM_PARAMETERS, value); }
+    public int getNumBranches(int row) { return getInt(row, NUM_BRANCHES); }
+    public void setNumBranches(int row, int value) { setInt(row, NUM_BRANCHES, value); }
+    public int getNestingDepth(int row) { return getInt(row, NESTING_DEPTH); }
+    public void setNestingDepth(int row, int value) { setInt(row, NESTING_DEPTH, value); }
+    public int getNumCodeSmells(int row) { return getInt(row, NUM_CODE_SMELLS); }
+    public void setNumCodeSmells(int row, int value) { setInt(row, NUM_CODE_SMELLS, value); }
+    public int getNumLocalVariables(int row) { return getInt(row, NUM_LOCAL_VARIABLES); }
+    public void setNumLocalVariables(int row, int value) { setInt(row, NUM_LOCAL_VARIABLES, value); }
+    public int getNumRevisions(int row) { return getInt(row, NUM_REVISIONS); }
+    public void incrementNumRevisions(int row) { setInt(row, NUM_REVISIONS, getInt(row, NUM_REVISIONS) + 1); }
+    public int getNumAuthors(int row) { return getInt(row, NUM_AUTHORS); }
+    public void setNumAuthors(int row, int value) { setInt(row, NUM_AUTHORS, value); }
+    public int getTotalStmtAdded(int row) { return getInt(row, TOTAL_STMT_ADDED); }
+    public void addStmtAdded(int row, int added) { setInt(row, TOTAL_STMT_ADDED, getInt(row, TOTAL_STMT_ADDED) + added); }
+    public int getTotalStmtDeleted(int row) { return getInt(row, TOTAL_STMT_DELETED); }
+    public void addStmtDeleted(int row, int deleted) { setInt(row, TOTAL_STMT_DELETED, getInt(row, TOTAL_STMT_DELETED) + deleted); }
+    public int getMaxChurn(int row) { return getInt(row, MAX_CHURN); }
+    public void setMaxChurn(int row, int value) { setInt(row, MAX_CHURN, value); }
+    public double getAvgChurn(int row) { return metrics.getAvgChurn(slot(row)); }
+    public void setAvgChurn(int row, double value) { metrics.setAvgChurn(slot(row), value); }
+    public int getFirstCommit(int row) { return getInt(row, FIRST_COMMIT); }
+    public void setFirstCommit(int row, int commit) { setInt(row, FIRST_COMMIT, commit); }
+    public int getHasFixHistory(int row) { return getInt(row, HAS_FIX_HISTORY); }
+    public void setHasFixHistory(int row, int value) { setInt(row, HAS_FIX_HISTORY, value != 0 ? 1 : 0); }
+    public boolean isBuggy(int row) { return getInt(row, BUGGY) != 0; }
+    public void setBuggy(int row, boolean value) { setInt(row, BUGGY, value ? 1 : 0); }
+
+    private long slot(int row) {
+        return metrics.slotOf(row, fqnIdColumn[row], releaseIds[row]);
+    }
+
+    private int getInt(int row, int field) {
+        return metrics.getInt(slot(row), field);
+    }
+
+    private void setInt(int row, int field, int value) {
+        metrics.setInt(slot(row), field, value);
+    }
+
+    private static int[] permute(int[] column, int[] order) {
+        int[] sorted = new int[column.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = column[order[i]];
+        }
+        return sorted;
+    }
+}
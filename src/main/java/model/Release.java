@@ -1,10 +1,7 @@
 package model;
 
-import org.eclipse.jgit.revwalk.RevCommit;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
 
 public class Release {
     private int id;
@@ -12,17 +9,13 @@ public class Release {
     private String name;
     //version date
     private LocalDate date;
-    //list of all commits related to that version
-    private List<RevCommit> commitList;
-
-    //list of all classes related to that version
-    private List <JavaMethod> methods;
+    //commits related to that version (indices into the CommitTable)
+    private CommitList commitList;
 
     public Release(String name, LocalDate date) {
         this.name = name;
         this.date = date;
-        this.commitList = new ArrayList<>();
-        this.methods = new ArrayList<>();
+        this.commitList = new CommitList();
     }
 
     public int getId() {
@@ -49,25 +42,13 @@ public class Release {
         this.date = date;
     }
 
-    public List<RevCommit> getCommitList() {
+    public CommitList getCommitList() {
         return commitList;
     }
 
-    public void addCommit(RevCommit commit){
+    public void addCommit(int commit){
         this.commitList.add(commit);
     }
 
-    public List<JavaMethod> getMethods() {
-        return methods;
-    }
-
-    public void addMethod(JavaMethod method){
-        this.methods.add(method);
-    }
-
-    public void setClasses(List<JavaMethod> methods) {
-        this.methods = methods;
-    }
-
 }
 
@@ -0,0 +1,63 @@
+package model;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+/**
+ * Metodo individuato nel sorgente di un file: firma, posizione della dichiarazione,
+ * impronta del corpo e LOC. È tutto ciò che serve per confrontare due versioni di un file.
+ * Impronta e LOC possono essere calcolate alla prima richiesta, così i metodi che il diff
+ * non tocca non vengono né hashati né misurati. Non è thread-safe.
+ */
+public class SourceMethod {
+
+    // Corpo del metodo di cui calcolare impronta e LOC quando servono
+    public interface Body {
+        long hash();
+        int loc();
+    }
+
+    private final String signature;
+    private final Range range; // null se la posizione non è nota
+    private Body body; // null una volta calcolate impronta e LOC
+    private long bodyHash;
+    private int loc;
+
+    public SourceMethod(String signature, Range range, long bodyHash, int loc) {
+        this.signature = signature;
+        this.range = range;
+        this.bodyHash = bodyHash;
+        this.loc = loc;
+    }
+
+    public SourceMethod(String signature, Range range, Body body) {
+        this.signature = signature;
+        this.range = range;
+        this.body = body;
+    }
+
+    // Firma nel formato di JavaParser, es. "m(int, List<String>)": è la chiave dei metodi di un file
+    public static String getSignature(MethodDeclaration md) {
+        return md.getSignature().asString();
+    }
+
+    public String getSignature() { return signature; }
+    public Range getRange() { return range; }
+
+    public long getBodyHash() {
+        measure();
+        return bodyHash;
+    }
+
+    public int getLoc() {
+        measure();
+        return loc;
+    }
+
+    private void measure() {
+        if (body == null) return;
+        bodyHash = body.hash();
+        loc = body.loc();
+        body = null;
+    }
+}
@@ -1,9 +1,7 @@
 package model;
 
-import org.eclipse.jgit.revwalk.RevCommit;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 public class Ticket {
@@ -15,7 +13,7 @@ public class Ticket {
     private Release ov;
     private Release fv;
     private List<Release> av;
-    private List<RevCommit> commitList;
+    private CommitList commitList;
 
     public Ticket(String ticketID, LocalDate creationDate, LocalDate resolutionDate, Release ov, Release fv, List<Release> av) {
         this.ticketID = ticketID;
@@ -29,7 +27,7 @@ public class Ticket {
         this.ov = ov;
         this.fv = fv;
         this.av = av;
-        this.commitList = new ArrayList<>();
+        this.commitList = new CommitList();
     }
 
     public String getTicketID() {
@@ -92,11 +90,11 @@ public class Ticket {
         this.av.add(release);
     }
 
-    public List<RevCommit> getCommitList() {
+    public CommitList getCommitList() {
         return commitList;
     }
 
-    public void addCommit(RevCommit commit){
+    public void addCommit(int commit){
         this.commitList.add(commit);
     }
 }
@@ -0,0 +1,37 @@
+package utils;
+
+/**
+ * Counts the lines of code of a method body from the positions of its tokens, fed in source order
+ * without whitespace and comments. A line counts when it holds at least one token and is not just
+ * an opening or closing brace; a token spanning several lines counts every line it touches.
+ */
+final class CodeLineCounter {
+    private int loc;
+    private int currentLine = -1;
+    private int tokensOnLine;
+    private boolean braceOnly;
+
+    void addToken(int beginLine, int endLine, boolean brace) {
+        if (beginLine != currentLine) {
+            closeLine();
+            currentLine = beginLine;
+            tokensOnLine = 0;
+        }
+        tokensOnLine++;
+        braceOnly = tokensOnLine == 1 && brace;
+        if (endLine > beginLine) {
+            loc += endLine - beginLine;
+            currentLine = endLine;
+        }
+    }
+
+    int getLoc() {
+        closeLine();
+        tokensOnLine = 0;
+        return loc;
+    }
+
+    private void closeLine() {
+        if (tokensOnLine > 0 && !braceOnly) loc++;
+    }
+}
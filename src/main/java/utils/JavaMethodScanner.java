@@ -0,0 +1,600 @@
+package utils;
+
+import com.github.javaparser.Range;
+import model.SourceMethod;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lexer-based extractor of method boundaries: recovers the signature, the position, the body
+ * fingerprint and the LOC of every method of a Java file without building an AST.
+ * Signatures, positions, fingerprints and LOC are the same JavaParser would give
+ * ({@code md.getSignature()}, {@code md.getRange()}, {@link MethodFingerprint}, {@link MethodMetricsVisitor}),
+ * so the two extractors can be mixed freely when comparing two versions of a file.
+ * It only understands classes and interfaces with named member types: whenever the source holds
+ * something it cannot resolve without a parser (enums, records, annotation types, anonymous or local
+ * classes, unicode escapes, text blocks, unbalanced brackets...) {@link #scan(String)} returns null
+ * and the caller is expected to fall back on JavaParser. It also returns null for the syntax added
+ * after Java 11 (switch expressions, multiple case labels, instanceof patterns, sealed classes), which
+ * the fallback parser ({@link JavaParsers}) rejects, so that a file has methods either for both or
+ * for neither.
+ */
+public final class JavaMethodScanner {
+
+    private static final String[] MODIFIERS = {
+            "public", "protected", "private", "static", "final", "abstract", "synchronized",
+            "native", "transient", "volatile", "strictfp", "default"
+    };
+    private static final String[] OPERATORS = {
+            ">>>=", "<<=", ">>=", "...", "->", "::", "++", "--", "&&", "||", "==", "!=", "<=", ">=",
+            "+=", "-=", "*=", "/=", "&=", "|=", "^=", "%=", "<<"
+    };
+    // ">>" and ">>>" are not listed: like JavaParser, they are split into single '>' tokens
+    private static final String SINGLE_CHAR_TOKENS = "(){}[];,.@=><!~?:+-*/&|^%";
+
+    private final String source;
+    private int[] tokenStart = new int[256];
+    private int[] tokenEnd = new int[256];
+    private int[] tokenLine = new int[256];
+    private int[] tokenColumn = new int[256];
+    private int tokenCount;
+    private int pos;
+    private final Map<String, SourceMethod> methods = new HashMap<>();
+
+    private JavaMethodScanner(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Returns the methods of the file by signature (the last one wins on duplicates, as with
+     * JavaParser's findAll order), or null if the lexer cannot tell the method boundaries apart.
+     */
+    public static Map<String, SourceMethod> scan(String source) {
+        if (source.contains("\\u") || source.contains("\"\"\"")) return null;
+        JavaMethodScanner scanner = new JavaMethodScanner(source);
+        try {
+            scanner.tokenize();
+            scanner.scanCompilationUnit();
+        } catch (AmbiguousSourceException e) {
+            return null;
+        }
+        return scanner.methods;
+    }
+
+    // --- LESSICO ---
+
+    private void tokenize() {
+        int length = source.length();
+        int i = 0;
+        int line = 1;
+        int column = 1;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                line++;
+                column = 1;
+                i++;
+                continue;
+            }
+            if (c == '\r') {
+                line++;
+                column = 1;
+                i++;
+                if (i < length && source.charAt(i) == '\n') i++;
+                continue;
+            }
+            if (c == ' ' || c == '\t' || c == '\f') {
+                i++;
+                column++;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                while (i < length && source.charAt(i) != '\n' && source.charAt(i) != '\r') {
+                    i++;
+                    column++;
+                }
+                continue;
+            }
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int close = source.indexOf("*/", i + 2);
+                if (close < 0) throw AmbiguousSourceException.INSTANCE;
+                for (int k = i; k < close + 2; k++) {
+                    char ch = source.charAt(k);
+                    if (Character.isSurrogate(ch)) throw AmbiguousSourceException.INSTANCE;
+                    if (ch == '\n' || (ch == '\r' && (k + 1 >= length || source.charAt(k + 1) != '\n'))) {
+                        line++;
+                        column = 1;
+                    } else if (ch != '\r') {
+                        column++;
+                    }
+                }
+                i = close + 2;
+                continue;
+            }
+
+            int start = i;
+            if (Character.isSurrogate(c)) {
+                throw AmbiguousSourceException.INSTANCE;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                i++;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i)) && !Character.isSurrogate(source.charAt(i))) i++;
+            } else if (isDigit(c) || (c == '.' && i + 1 < length && isDigit(source.charAt(i + 1)))) {
+                i = scanNumber(i);
+            } else if (c == '"' || c == '\'') {
+                i = scanQuoted(i, c);
+            } else {
+                i = scanOperator(i);
+            }
+            addToken(start, i, line, column);
+            column += i - start;
+        }
+    }
+
+    private int scanNumber(int i) {
+        int length = source.length();
+        boolean hex = source.startsWith("0x", i) || source.startsWith("0X", i);
+        i++;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '_') {
+                i++;
+                boolean exponent = hex ? (c == 'p' || c == 'P') : (c == 'e' || c == 'E');
+                if (exponent && i < length && (source.charAt(i) == '+' || source.charAt(i) == '-')) i++;
+            } else if (c == '.' && !(i + 1 < length && source.charAt(i + 1) == '.')) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private int scanQuoted(int i, char quote) {
+        int length = source.length();
+        i++;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == quote) return i + 1;
+            if (c == '\n' || c == '\r' || Character.isSurrogate(c)) break;
+            i += c == '\\' ? 2 : 1;
+        }
+        throw AmbiguousSourceException.INSTANCE;
+    }
+
+    private int scanOperator(int i) {
+        for (String operator : OPERATORS) {
+            if (source.startsWith(operator, i)) return i + operator.length();
+        }
+        if (SINGLE_CHAR_TOKENS.indexOf(source.charAt(i)) >= 0) return i + 1;
+        throw AmbiguousSourceException.INSTANCE;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void addToken(int start, int end, int line, int column) {
+        if (tokenCount == tokenStart.length) {
+            int capacity = tokenCount * 2;
+            tokenStart = Arrays.copyOf(tokenStart, capacity);
+            tokenEnd = Arrays.copyOf(tokenEnd, capacity);
+            tokenLine = Arrays.copyOf(tokenLine, capacity);
+            tokenColumn = Arrays.copyOf(tokenColumn, capacity);
+        }
+        tokenStart[tokenCount] = start;
+        tokenEnd[tokenCount] = end;
+        tokenLine[tokenCount] = line;
+        tokenColumn[tokenCount] = column;
+        tokenCount++;
+    }
+
+    // --- STRUTTURA ---
+
+    private void scanCompilationUnit() {
+        while (pos < tokenCount) {
+            if (is(pos, "package") || is(pos, "import")) {
+                while (!is(pos, ";")) advance();
+                pos++;
+            } else if (is(pos, ";")) {
+                pos++;
+            } else {
+                skipAnnotationsAndModifiers();
+                if (!is(pos, "class") && !is(pos, "interface")) throw AmbiguousSourceException.INSTANCE;
+                scanTypeDeclaration();
+            }
+        }
+    }
+
+    // From 'class'/'interface' to the closing brace of the type body
+    private void scanTypeDeclaration() {
+        pos++;
+        expectIdentifier();
+        int parenDepth = 0;
+        while (parenDepth > 0 || !is(pos, "{")) {
+            if (is(pos, "(")) parenDepth++;
+            if (is(pos, ")")) parenDepth--;
+            if (is(pos, ";") || is(pos, "}") || is(pos, "permits")) throw AmbiguousSourceException.INSTANCE;
+            advance();
+        }
+        pos++;
+        while (!is(pos, "}")) {
+            if (pos >= tokenCount) throw AmbiguousSourceException.INSTANCE;
+            scanMember();
+        }
+        pos++;
+    }
+
+    private void scanMember() {
+        if (is(pos, ";")) {
+            pos++;
+            return;
+        }
+        int memberStart = pos;
+        skipAnnotationsAndModifiers();
+        if (is(pos, "class") || is(pos, "interface")) {
+            scanTypeDeclaration();
+            return;
+        }
+        if (is(pos, "enum") || (is(pos, "record") && isIdentifier(pos + 1))) throw AmbiguousSourceException.INSTANCE;
+        if (is(pos, "{")) { // Blocco di inizializzazione
+            skipBlock();
+            return;
+        }
+        if (is(pos, "<")) skipAngles();
+        if (isIdentifier(pos) && is(pos + 1, "(")) { // Costruttore
+            pos++;
+            skipParentheses();
+            while (!is(pos, "{")) advance();
+            skipBlock();
+            return;
+        }
+        skipType();
+        expectIdentifier();
+        if (is(pos, "(")) {
+            scanMethod(memberStart, pos - 1);
+        } else {
+            skipFieldDeclaration();
+        }
+    }
+
+    private void scanMethod(int memberStart, int nameIndex) {
+        StringBuilder signature = new StringBuilder();
+        appendToken(signature, nameIndex);
+        signature.append('(');
+        pos++;
+        boolean firstParameter = true;
+        while (!is(pos, ")")) {
+            if (!firstParameter) {
+                if (!is(pos, ",")) throw AmbiguousSourceException.INSTANCE;
+                pos++;
+                signature.append(", ");
+            }
+            appendParameterType(signature);
+            firstParameter = false;
+        }
+        pos++;
+        signature.append(')');
+
+        if (is(pos, "throws")) {
+            while (!is(pos, "{") && !is(pos, ";")) advance();
+        }
+        int bodyStart = pos;
+        if (is(pos, "{")) {
+            skipBlock();
+        } else if (is(pos, ";")) {
+            pos++;
+        } else {
+            throw AmbiguousSourceException.INSTANCE; // es. dimensioni di array dopo i parametri
+        }
+
+        int last = pos - 1;
+        Range range = Range.range(tokenLine[memberStart], tokenColumn[memberStart],
+                tokenLine[last], tokenColumn[last] + tokenEnd[last] - tokenStart[last] - 1);
+        String methodSignature = signature.toString();
+        methods.put(methodSignature, new SourceMethod(methodSignature, range, new ScannedBody(bodyStart, pos)));
+    }
+
+    // Tokens of the body, '{' to '}' included, or the ';' of a method without body; measured on demand
+    private final class ScannedBody implements SourceMethod.Body {
+        private final int start;
+        private final int end;
+
+        private ScannedBody(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public long hash() {
+            if (!is(start, "{")) return MethodFingerprint.EMPTY_BODY;
+            long hash = MethodFingerprint.OFFSET_BASIS;
+            for (int k = start; k < end; k++) {
+                hash = MethodFingerprint.addToken(hash, source, tokenStart[k], tokenEnd[k]);
+            }
+            return MethodFingerprint.finish(hash);
+        }
+
+        @Override
+        public int loc() {
+            if (!is(start, "{")) return 0;
+            CodeLineCounter counter = new CodeLineCounter();
+            for (int k = start; k < end; k++) {
+                counter.addToken(tokenLine[k], tokenLine[k], is(k, "{") || is(k, "}"));
+            }
+            return counter.getLoc();
+        }
+    }
+
+    // Type of one parameter as printed by JavaParser's Signature: annotations and 'final' dropped,
+    // varargs and dimensions after the name as array dimensions, type arguments of the outermost
+    // type removed unless the type is an array
+    private void appendParameterType(StringBuilder signature) {
+        skipAnnotationsAndModifiers();
+        int typeStart = pos;
+        skipType();
+        int typeEnd = pos;
+        int dimensions = 0;
+        if (is(pos, "...")) {
+            dimensions++;
+            pos++;
+        }
+        expectIdentifier();
+        while (is(pos, "[") && is(pos + 1, "]")) {
+            dimensions++;
+            pos += 2;
+        }
+
+        boolean array = dimensions > 0 || is(typeEnd - 1, "]");
+        if (!array && is(typeEnd - 1, ">")) {
+            int depth = 0;
+            do {
+                typeEnd--;
+                if (is(typeEnd, ">")) depth++;
+                if (is(typeEnd, "<")) depth--;
+            } while (depth > 0);
+        }
+        for (int k = typeStart; k < typeEnd; k++) {
+            if (is(k, "extends") || is(k, "super")) {
+                signature.append(' ');
+                appendToken(signature, k);
+                signature.append(' ');
+            } else {
+                appendToken(signature, k);
+            }
+        }
+        for (int d = 0; d < dimensions; d++) {
+            signature.append("[]");
+        }
+    }
+
+    private void skipAnnotationsAndModifiers() {
+        while (true) {
+            if (is(pos, "@")) {
+                if (is(pos + 1, "interface")) throw AmbiguousSourceException.INSTANCE;
+                pos++;
+                expectIdentifier();
+                while (is(pos, ".") && isIdentifier(pos + 1)) pos += 2;
+                if (is(pos, "(")) skipParentheses();
+            } else if (isModifier(pos)) {
+                pos++;
+            } else if (is(pos, "sealed") || (is(pos, "non") && is(pos + 1, "-") && is(pos + 2, "sealed"))) {
+                throw AmbiguousSourceException.INSTANCE;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipType() {
+        expectIdentifier();
+        while (true) {
+            if (is(pos, "<")) skipAngles();
+            if (is(pos, ".") && isIdentifier(pos + 1)) {
+                pos += 2;
+            } else {
+                break;
+            }
+        }
+        while (is(pos, "[") && is(pos + 1, "]")) pos += 2;
+        if (is(pos, "@")) throw AmbiguousSourceException.INSTANCE;
+    }
+
+    private void skipAngles() {
+        int depth = 0;
+        do {
+            if (is(pos, "<")) depth++;
+            else if (is(pos, ">")) depth--;
+            else if (is(pos, "@") || is(pos, "(") || is(pos, "{") || is(pos, ";")) throw AmbiguousSourceException.INSTANCE;
+            advance();
+        } while (depth > 0);
+    }
+
+    private void skipParentheses() {
+        int depth = 0;
+        do {
+            if (is(pos, "(")) depth++;
+            else if (is(pos, ")")) depth--;
+            advance();
+        } while (depth > 0);
+    }
+
+    // From '{' to the matching '}', rejecting anonymous and local classes, whose methods would be missed
+    private void skipBlock() {
+        int depth = 0;
+        do {
+            checkNoNestedType(pos);
+            checkJava11Syntax(pos);
+            if (is(pos, "{")) depth++;
+            else if (is(pos, "}")) depth--;
+            advance();
+        } while (depth > 0);
+    }
+
+    private void skipFieldDeclaration() {
+        int depth = 0;
+        while (depth > 0 || !is(pos, ";")) {
+            checkNoNestedType(pos);
+            checkJava11Syntax(pos);
+            if (is(pos, "{") || is(pos, "(") || is(pos, "[")) depth++;
+            else if (is(pos, "}") || is(pos, ")") || is(pos, "]")) depth--;
+            if (depth < 0) throw AmbiguousSourceException.INSTANCE;
+            advance();
+        }
+        pos++;
+    }
+
+    private void checkNoNestedType(int k) {
+        if ((is(k, "class") && !is(k - 1, ".")) || is(k, "interface") || is(k, "enum")
+                || (is(k, "record") && isIdentifier(k + 1))) {
+            throw AmbiguousSourceException.INSTANCE;
+        }
+        if (is(k, "new") && isAnonymousClassCreation(k + 1)) {
+            throw AmbiguousSourceException.INSTANCE;
+        }
+    }
+
+    // Syntax that the JAVA_11 fallback parser rejects
+    private void checkJava11Syntax(int k) {
+        if ((is(k, "switch") && !isStatementStart(k - 1))
+                || (is(k, "case") && !isSingleConstantLabel(k + 1))
+                || (is(k, "instanceof") && isTypePattern(k + 1))) {
+            throw AmbiguousSourceException.INSTANCE;
+        }
+    }
+
+    // A switch statement follows the end of a statement, a label, 'else', 'do' or the condition of if/while/for
+    private boolean isStatementStart(int k) {
+        if (is(k, ";") || is(k, "{") || is(k, "}") || is(k, "else") || is(k, "do")) return true;
+        if (is(k, ":")) return isLabelColon(k);
+        if (!is(k, ")")) return false;
+        int depth = 0;
+        do {
+            if (is(k, ")")) depth++;
+            else if (is(k, "(")) depth--;
+            k--;
+        } while (depth > 0 && k >= 0);
+        return is(k, "if") || is(k, "while") || is(k, "for");
+    }
+
+    // The colon of 'default:', 'case X:' or 'name:', not the one of a conditional expression
+    private boolean isLabelColon(int k) {
+        if (is(k - 1, "default")) return true;
+        if (isIdentifier(k - 1) && (is(k - 2, ";") || is(k - 2, "{") || is(k - 2, "}") || is(k - 2, ":"))) return true;
+        for (int j = k - 1; j >= 0; j--) {
+            if (is(j, "case")) return true;
+            if (is(j, ";") || is(j, "{") || is(j, "}") || is(j, "?") || is(j, "->")) return false;
+        }
+        return false;
+    }
+
+    // case CONSTANT: or case CONSTANT -> ; no lists of labels, no patterns
+    private boolean isSingleConstantLabel(int k) {
+        int depth = 0;
+        for (; k < tokenCount; k++) {
+            if (depth == 0 && (is(k, ":") || is(k, "->"))) return true;
+            if (is(k, "(") || is(k, "[")) depth++;
+            else if (is(k, ")") || is(k, "]")) depth--;
+            else if ((depth == 0 && is(k, ",")) || is(k, "?") || is(k, "{") || is(k, ";")
+                    || (isIdentifier(k) && isIdentifier(k + 1))) return false;
+        }
+        return false;
+    }
+
+    // instanceof Type name, instanceof final Type name, instanceof Record(...)
+    private boolean isTypePattern(int k) {
+        if (is(k, "final") || is(k, "@")) return true;
+        while (isIdentifier(k)) {
+            k++;
+            if (is(k, "<")) {
+                int depth = 0;
+                do {
+                    if (is(k, "<")) depth++;
+                    else if (is(k, ">")) depth--;
+                    else if (is(k, "(") || is(k, ";") || k >= tokenCount) return true;
+                    k++;
+                } while (depth > 0);
+            }
+            if (!is(k, ".")) break;
+            k++;
+        }
+        while (is(k, "[") && is(k + 1, "]")) k += 2;
+        return isIdentifier(k) || is(k, "(");
+    }
+
+    // new Type<...>(...) { : the body of an anonymous class follows the arguments
+    private boolean isAnonymousClassCreation(int k) {
+        while (k < tokenCount && (isIdentifier(k) || is(k, ".") || is(k, "@"))) {
+            k++;
+            if (is(k, "<")) {
+                int depth = 0;
+                do {
+                    if (is(k, "<")) depth++;
+                    else if (is(k, ">")) depth--;
+                    else if (is(k, "(") || is(k, ";") || k >= tokenCount) return false;
+                    k++;
+                } while (depth > 0);
+            }
+        }
+        if (!is(k, "(")) return false;
+        int depth = 0;
+        do {
+            if (k >= tokenCount) throw AmbiguousSourceException.INSTANCE;
+            if (is(k, "(")) depth++;
+            else if (is(k, ")")) depth--;
+            k++;
+        } while (depth > 0);
+        return is(k, "{");
+    }
+
+    // --- TOKEN ---
+
+    private void advance() {
+        pos++;
+        if (pos > tokenCount) throw AmbiguousSourceException.INSTANCE;
+    }
+
+    private void expectIdentifier() {
+        if (!isIdentifier(pos)) throw AmbiguousSourceException.INSTANCE;
+        pos++;
+    }
+
+    private boolean is(int k, String text) {
+        return k >= 0 && k < tokenCount && tokenEnd[k] - tokenStart[k] == text.length()
+                && source.startsWith(text, tokenStart[k]);
+    }
+
+    private boolean isIdentifier(int k) {
+        return k >= 0 && k < tokenCount && Character.isJavaIdentifierStart(source.charAt(tokenStart[k]))
+                && !isKeyword(k);
+    }
+
+    private boolean isModifier(int k) {
+        for (String modifier : MODIFIERS) {
+            if (is(k, modifier)) return true;
+        }
+        return false;
+    }
+
+    // Keywords that can follow a type where an identifier is expected; primitive types count as identifiers here
+    private boolean isKeyword(int k) {
+        return is(k, "class") || is(k, "interface") || is(k, "enum") || is(k, "new") || is(k, "this")
+                || is(k, "throws") || is(k, "extends") || is(k, "implements") || is(k, "super")
+                || is(k, "return") || is(k, "instanceof") || isModifier(k);
+    }
+
+    private void appendToken(StringBuilder builder, int k) {
+        builder.append(source, tokenStart[k], tokenEnd[k]);
+    }
+
+    // Uscita anticipata quando il sorgente richiede un parser completo
+    private static final class AmbiguousSourceException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private static final AmbiguousSourceException INSTANCE = new AmbiguousSourceException();
+
+        private AmbiguousSourceException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package utils;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+
+/**
+ * Per-thread JavaParser instances, replacing the global StaticJavaParser configuration: every thread
+ * that parses gets its own parser and configuration, so parsing can run on many cores without sharing
+ * mutable state. The configuration is tuned for metric computation: the language level is fixed,
+ * comments are not attributed to nodes (no metric reads them), lexical preservation is off and tokens
+ * are kept, since LOC and body fingerprints are computed from them.
+ */
+public final class JavaParsers {
+
+    private static final ThreadLocal<JavaParser> PARSERS = ThreadLocal.withInitial(() -> new JavaParser(newConfiguration()));
+
+    private JavaParsers() {
+    }
+
+    /**
+     * Parses a compilation unit with the parser of the calling thread.
+     *
+     * @throws ParseProblemException if the source cannot be parsed, as StaticJavaParser.parse does
+     */
+    public static CompilationUnit parse(String source) {
+        ParseResult<CompilationUnit> result = PARSERS.get().parse(source);
+        if (result.isSuccessful() && result.getResult().isPresent()) {
+            return result.getResult().get();
+        }
+        throw new ParseProblemException(result.getProblems());
+    }
+
+    private static ParserConfiguration newConfiguration() {
+        return new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_11)
+                .setAttributeComments(false)
+                .setLexicalPreservationEnabled(false)
+                .setStoreTokens(true);
+    }
+}
@@ -0,0 +1,154 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the pages of a paginated Jira request. Every page is retried with exponential backoff on I/O
+ * errors, except for missing resources (HTTP 404, or a response absent from a replay cache), which
+ * would fail again. The pages of a request are read ahead on a bounded pool of threads, one per
+ * {@link Session}, and consumed in request order, so the result does not depend on the parallelism;
+ * with parallelism 1 the pages are read one after the other on the calling thread.
+ */
+public final class JiraPageFetcher {
+
+    /**
+     * Reads the page starting at the given index. It may be called concurrently and more than once for
+     * the same page, so every call must build its own result.
+     */
+    @FunctionalInterface
+    public interface PageReader<P> {
+        P read(int startAt) throws IOException;
+    }
+
+    private final int parallelism;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+
+    public JiraPageFetcher(int parallelism, int maxAttempts, long initialBackoffMillis) {
+        this.parallelism = Math.max(1, parallelism);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public <P> P fetch(PageReader<P> reader, int startAt) throws IOException {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return reader.read(startAt);
+            } catch (FileNotFoundException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= maxAttempts || e instanceof InterruptedIOException) throw e;
+                PrintUtils.Console.info(String.format(Locale.ROOT, "Jira page at %d failed (%s), attempt %d of %d in %d ms",
+                        startAt, e.getMessage(), attempt + 1, maxAttempts, backoff));
+                sleep(backoff);
+                backoff *= 2;
+            }
+        }
+    }
+
+    /**
+     * Opens a session for the pages of one paginated request. The pages requested with
+     * {@link Session#request(int)} are read in the background, at most parallelism at a time, on a
+     * pool of threads that lives as long as the session, so the caller can keep that many pages in
+     * flight while it consumes them in order with {@link Session#take(int)}.
+     */
+    public <P> Session<P> open(PageReader<P> reader) {
+        return new Session<>(reader);
+    }
+
+    /**
+     * Pages of one paginated request, read ahead in the background. Not thread-safe: it is driven by
+     * the thread that consumes the pages.
+     */
+    public final class Session<P> implements Closeable {
+        private final PageReader<P> reader;
+        private final ExecutorService executor;
+        private final Map<Integer, Future<P>> pending = new HashMap<>();
+
+        private Session(PageReader<P> reader) {
+            this.reader = reader;
+            if (parallelism == 1) {
+                this.executor = null;
+                return;
+            }
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "jira-fetch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * Starts reading the page at the given index in the background, unless it is already requested.
+         * With parallelism 1 the page is only read when it is taken.
+         */
+        public void request(int startAt) {
+            if (executor != null && !pending.containsKey(startAt)) {
+                pending.put(startAt, executor.submit(() -> fetch(reader, startAt)));
+            }
+        }
+
+        /**
+         * Returns the page at the given index, waiting for it if it was requested or reading it on the
+         * calling thread otherwise.
+         */
+        public P take(int startAt) throws IOException {
+            Future<P> future = pending.remove(startAt);
+            if (future == null) return fetch(reader, startAt);
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading Jira pages");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IOException(cause);
+            }
+        }
+
+        /**
+         * Cancels the pages requested and not taken yet, e.g. when a short page moves the following ones.
+         */
+        public void cancelPending() {
+            for (Future<P> future : pending.values()) {
+                future.cancel(true);
+            }
+            pending.clear();
+        }
+
+        @Override
+        public void close() {
+            cancelPending();
+            if (executor != null) executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry a Jira page");
+        }
+    }
+}
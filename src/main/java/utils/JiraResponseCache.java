@@ -0,0 +1,220 @@
+package utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * On-disk cache of Jira REST responses, kept under cacheFiles/jira/. Every response is stored in a file
+ * named after the SHA-256 of its normalized URL: scheme and host in lower case and query parameters in
+ * sorted order, so the same request always maps to the same file. In {@link Mode#RECORD} missing
+ * responses are downloaded and stored, in {@link Mode#REPLAY} they are served from disk only and a
+ * missing one is an error, which makes reruns and benchmarks deterministic and usable without network.
+ * Delete the directory to refresh the data.
+ */
+public class JiraResponseCache {
+
+    public enum Mode {
+        /** Every request goes to the network, nothing is stored. */
+        DISABLED,
+        /** Stored responses are reused, missing ones are downloaded and stored. */
+        RECORD,
+        /** Only stored responses are used. */
+        REPLAY
+    }
+
+    private static final String CACHE_DIR = "cacheFiles/jira/";
+    private static final String EXTENSION = ".json";
+
+    private final Path directory;
+    private final Mode mode;
+
+    public JiraResponseCache(Path directory, Mode mode) {
+        this.directory = directory;
+        this.mode = mode;
+    }
+
+    public static JiraResponseCache open(Mode mode) {
+        return new JiraResponseCache(Paths.get(CACHE_DIR), mode);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Opens the response for the URL: the stored one if there is, otherwise the network one. In record mode
+     * the downloaded bytes are copied to the cache while they are read, and the entry is kept only if the
+     * response has been read to the end.
+     */
+    public InputStream open(String url) throws IOException {
+        if (mode != Mode.DISABLED) {
+            Path file = fileOf(url);
+            if (Files.exists(file)) {
+                return new BufferedInputStream(Files.newInputStream(file));
+            }
+            if (mode == Mode.REPLAY) {
+                throw new FileNotFoundException("Jira response not available in replay mode: " + url);
+            }
+        }
+        InputStream network = new BufferedInputStream(new URL(url).openStream());
+        if (mode != Mode.RECORD) return network;
+        Files.createDirectories(directory);
+        // Written aside and moved, so that an interrupted run never leaves a truncated response
+        Path temporary = Files.createTempFile(directory, "response", ".tmp");
+        return new RecordingInputStream(network, temporary, fileOf(url));
+    }
+
+    /**
+     * In replay mode, stores a project response built from a version catalog such as BOOKKEEPERVersionInfo.csv
+     * (Index,Version ID,Version Name,Date) if the project response is missing: only the versions are filled in.
+     */
+    public void seedProjectVersions(String projectUrl, Path versionInfoCsv) throws IOException {
+        if (mode != Mode.REPLAY || Files.exists(fileOf(projectUrl)) || !Files.exists(versionInfoCsv)) return;
+
+        JSONArray versions = new JSONArray();
+        try (BufferedReader reader = Files.newBufferedReader(versionInfoCsv, StandardCharsets.UTF_8)) {
+            reader.readLine(); // header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length < 4) continue;
+                JSONObject version = new JSONObject();
+                version.put("id", fields[1].trim());
+                version.put("name", fields[2].trim());
+                version.put("releaseDate", fields[3].trim().substring(0, 10));
+                versions.put(version);
+            }
+        }
+        Files.createDirectories(directory);
+        Files.write(fileOf(projectUrl), new JSONObject().put("versions", versions).toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Copies what is read to a temporary file, moved over the cache entry on close once the end of the
+     * response has been reached; a response that was not read to the end is discarded.
+     */
+    private static final class RecordingInputStream extends FilterInputStream {
+        private final OutputStream copy;
+        private final Path temporary;
+        private final Path target;
+        private boolean complete;
+
+        private RecordingInputStream(InputStream in, Path temporary, Path target) throws IOException {
+            super(in);
+            this.copy = new BufferedOutputStream(Files.newOutputStream(temporary));
+            this.temporary = temporary;
+            this.target = target;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                complete = true;
+            } else {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read == -1) {
+                complete = true;
+            } else {
+                copy.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes must end up in the cache too
+            long skipped = 0;
+            while (skipped < n && read() != -1) {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+                copy.close();
+            } finally {
+                if (complete) {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.deleteIfExists(temporary);
+                }
+            }
+        }
+    }
+
+    private Path fileOf(String url) throws IOException {
+        return directory.resolve(sha256(normalize(url)) + EXTENSION);
+    }
+
+    static String normalize(String url) throws IOException {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid Jira URL: " + url, e);
+        }
+        if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+            throw new IOException("Invalid Jira URL: " + url);
+        }
+        StringBuilder normalized = new StringBuilder();
+        normalized.append(uri.getScheme().toLowerCase(Locale.ROOT)).append("://")
+                .append(uri.getRawAuthority().toLowerCase(Locale.ROOT))
+                .append(uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            String[] parameters = uri.getRawQuery().split("&");
+            Arrays.sort(parameters);
+            normalized.append('?').append(String.join("&", parameters));
+        }
+        return normalized.toString();
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package utils;
+
+import model.JiraIssue;
+import model.Release;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local copy of the fixed bugs of one project, kept in cacheFiles/&lt;project&gt;/jiraTickets.bin, so
+ * that a run only asks Jira for the issues updated since the previous sync and merges them in. The
+ * issues keep the order in which they were first received; an updated issue keeps its place and a
+ * new one is appended. The store also keeps the injected versions estimated by proportion for the
+ * tickets without affected versions: the estimates depend on the tickets resolved before, so a sync
+ * discards those from the earliest resolution date it touched onwards, and all of them are discarded
+ * when the releases change. Cold start estimates, which depend on the reference projects, are never
+ * stored. The file is rewritten as a whole by {@link #save()}.
+ */
+public class JiraTicketStore {
+
+    private static final Logger LOGGER = Logger.getLogger(JiraTicketStore.class.getName());
+    private static final String CACHE_FILES_DIR = "cacheFiles/";
+    private static final String STORE_FILE = "jiraTickets.bin";
+
+    private static final int MAGIC = 0x4A495241;
+    // Bump whenever the record layout changes: older files are then discarded and fully downloaded again
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path path;
+    private final Map<String, JiraIssue> issues = new LinkedHashMap<>();
+    private final Map<String, Integer> estimatedIvs = new HashMap<>();
+    private String releasesFingerprint = "";
+    private long lastSyncMillis;
+
+    public JiraTicketStore(Path path) throws IOException {
+        this.path = path;
+        load();
+    }
+
+    public static JiraTicketStore open(String project) throws IOException {
+        return new JiraTicketStore(Paths.get(CACHE_FILES_DIR + project.toLowerCase(), STORE_FILE));
+    }
+
+    /**
+     * Start time of the last completed sync, in epoch milliseconds, or 0 if the project was never synced.
+     */
+    public long getLastSyncMillis() {
+        return lastSyncMillis;
+    }
+
+    public void setLastSyncMillis(long lastSyncMillis) {
+        this.lastSyncMillis = lastSyncMillis;
+    }
+
+    public List<JiraIssue> getIssues() {
+        return new ArrayList<>(issues.values());
+    }
+
+    /**
+     * Replaces the whole content with the result of a full download.
+     */
+    public void replaceAll(List<JiraIssue> fixedIssues) {
+        issues.clear();
+        estimatedIvs.clear();
+        for (JiraIssue issue : fixedIssues) {
+            issues.put(issue.getKey(), issue);
+        }
+    }
+
+    /**
+     * Stores the fixed issues and drops the issues that are no longer fixed bugs. Returns the number of
+     * issues actually added, changed or removed.
+     */
+    public int merge(List<JiraIssue> fixedIssues, Collection<String> removedKeys) {
+        LocalDate firstAffected = null;
+        int changed = 0;
+        for (JiraIssue issue : fixedIssues) {
+            JiraIssue previous = issues.put(issue.getKey(), issue);
+            if (issue.equals(previous)) continue;
+            changed++;
+            firstAffected = earliest(firstAffected, resolutionDay(issue));
+            if (previous != null) firstAffected = earliest(firstAffected, resolutionDay(previous));
+        }
+        for (String key : removedKeys) {
+            JiraIssue previous = issues.remove(key);
+            if (previous == null) continue;
+            changed++;
+            firstAffected = earliest(firstAffected, resolutionDay(previous));
+        }
+        if (firstAffected != null) {
+            Iterator<Map.Entry<String, Integer>> it = estimatedIvs.entrySet().iterator();
+            while (it.hasNext()) {
+                JiraIssue issue = issues.get(it.next().getKey());
+                if (issue == null || !resolutionDay(issue).isBefore(firstAffected)) it.remove();
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the injected versions estimated in previous runs by ticket key, to be updated with the new
+     * estimates. They are discarded if the releases are not the ones they were estimated with.
+     */
+    public Map<String, Integer> getEstimatedIvs(List<Release> releasesList) {
+        String fingerprint = fingerprint(releasesList);
+        if (!fingerprint.equals(releasesFingerprint)) {
+            estimatedIvs.clear();
+            releasesFingerprint = fingerprint;
+        }
+        return estimatedIvs;
+    }
+
+    public void save() throws IOException {
+        Files.createDirectories(path.getParent());
+        // Written aside and moved, so that an interrupted run leaves the previous sync in place
+        Path temporary = Files.createTempFile(path.getParent(), "jiraTickets", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(lastSyncMillis);
+            out.writeUTF(releasesFingerprint);
+            out.writeInt(issues.size());
+            for (JiraIssue issue : issues.values()) {
+                out.writeUTF(issue.getKey());
+                out.writeUTF(issue.getCreated());
+                out.writeUTF(issue.getResolutionDate());
+                out.writeInt(issue.getVersionNames().size());
+                for (String versionName : issue.getVersionNames()) {
+                    out.writeUTF(versionName);
+                }
+                Integer iv = estimatedIvs.get(issue.getKey());
+                out.writeInt(iv == null ? 0 : iv);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(path)) return;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                LOGGER.log(Level.INFO, "Discarding Jira ticket store with unknown format: {0}", path);
+                return;
+            }
+            long syncMillis = in.readLong();
+            String fingerprint = in.readUTF();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                String created = in.readUTF();
+                String resolutionDate = in.readUTF();
+                int versions = in.readInt();
+                List<String> versionNames = new ArrayList<>(versions);
+                for (int v = 0; v < versions; v++) {
+                    versionNames.add(in.readUTF());
+                }
+                issues.put(key, new JiraIssue(key, created, resolutionDate, versionNames));
+                int iv = in.readInt();
+                if (iv > 0) estimatedIvs.put(key, iv);
+            }
+            this.lastSyncMillis = syncMillis;
+            this.releasesFingerprint = fingerprint;
+        } catch (IOException e) {
+            LOGGER.log(Level.INFO, "Discarding corrupted Jira ticket store: {0}", path);
+            issues.clear();
+            estimatedIvs.clear();
+        }
+    }
+
+    private static String fingerprint(List<Release> releasesList) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Release release : releasesList) {
+            fingerprint.append(release.getId()).append(' ').append(release.getName()).append(' ').append(release.getDate()).append('\n');
+        }
+        return fingerprint.toString();
+    }
+
+    private static LocalDate resolutionDay(JiraIssue issue) {
+        return LocalDate.parse(issue.getResolutionDate().substring(0, 10));
+    }
+
+    private static LocalDate earliest(LocalDate a, LocalDate b) {
+        return a == null || b.isBefore(a) ? b : a;
+    }
+}
@@ -3,39 +3,81 @@ package utils;
 import controller.Proportion;
 import model.Release;
 import model.Ticket;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.*;
 import java.net.URL;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public class JiraUtils {
 
     private JiraUtils(){}
 
+    private static JiraResponseCache responseCache = JiraResponseCache.open(JiraResponseCache.Mode.DISABLED);
+
+    private static JiraPageFetcher pageFetcher = new JiraPageFetcher(1, 3, 500);
+
+    private static boolean incrementalTicketSync = false;
+
+    public static void setResponseCache(JiraResponseCache cache) {
+        responseCache = cache;
+    }
+
+    // Con la sincronizzazione incrementale i ticket di ogni progetto sono tenuti in cacheFiles/<progetto>/ (mai in replay mode)
+    public static void setIncrementalTicketSync(boolean enabled) {
+        incrementalTicketSync = enabled;
+    }
+
+    public static boolean isIncrementalTicketSync() {
+        return incrementalTicketSync && responseCache.getMode() != JiraResponseCache.Mode.REPLAY;
+    }
+
+    public static void setPageFetcher(JiraPageFetcher fetcher) {
+        pageFetcher = fetcher;
+    }
+
+    public static JiraPageFetcher getPageFetcher() {
+        return pageFetcher;
+    }
+
     public static JSONObject readJsonFromUrl(String url) throws IOException, JSONException {
-        InputStream is = new URL(url).openStream();
-        try {
-            BufferedReader rd = new BufferedReader(new InputStreamReader(is, Charset.forName("UTF-8")));
-            String jsonText = readAll(rd);
-            return new JSONObject(jsonText);
-        } finally {
-            is.close();
+        return readJsonFromUrl(url, false);
+    }
+
+    public static JSONObject readJsonFromUrl(String url, boolean bypassCache) throws IOException, JSONException {
+        String jsonText;
+        try (Reader rd = openJsonReader(url, bypassCache)) {
+            jsonText = readAll(rd);
         }
+        return new JSONObject(jsonText);
+    }
+
+    // Risposta letta man mano che arriva, per i parser in streaming; con bypassCache sempre dalla rete e mai salvata
+    public static Reader openJsonReader(String url, boolean bypassCache) throws IOException {
+        InputStream in = bypassCache ? new BufferedInputStream(new URL(url).openStream()) : responseCache.open(url);
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    // In replay mode il catalogo delle release può essere ricostruito da un file <PROGETTO>VersionInfo.csv
+    public static void seedProjectVersions(String projectUrl, Path versionInfoCsv) throws IOException {
+        responseCache.seedProjectVersions(projectUrl, versionInfoCsv);
     }
 
     private static String readAll(Reader rd) throws IOException {
         StringBuilder sb = new StringBuilder();
-        int cp;
-        while ((cp = rd.read()) != -1) {
-            sb.append((char) cp);
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = rd.read(buffer)) != -1) {
+            sb.append(buffer, 0, read);
         }
         return sb.toString();
     }
@@ -54,12 +96,11 @@ public class JiraUtils {
         return null;
     }
 
-    public static List<Release> returnAffectedVersions(JSONArray affectedVersionsArray, List<Release> releasesList) {
+    public static List<Release> returnAffectedVersions(List<String> affectedVersionNames, List<Release> releasesList) {
         List<Release> existingAffectedVersions = new ArrayList<>();
 
         //iterating through the names of the affected versions
-        for (int i = 0; i < affectedVersionsArray.length(); i++) {
-            String affectedVersionName = affectedVersionsArray.getJSONObject(i).get("name").toString();
+        for (String affectedVersionName : affectedVersionNames) {
 
             //iterating through the releases to find the corresponding one
             for (Release release : releasesList) {
@@ -74,13 +115,30 @@ public class JiraUtils {
     }
 
     public static List<Ticket> addIVandAV(List<Ticket> ticketsList, List<Release> releasesList) throws IOException {
+        return addIVandAV(ticketsList, releasesList, new HashMap<>());
+    }
+
+    /**
+     * Come addIVandAV, riusando gli IV già stimati (per chiave del ticket): la mappa deve contenere solo stime
+     * ancora valide e viene aggiornata con quelle nuove. Le stime fatte con il cold start non vengono salvate,
+     * perché dipendono dai ticket dei progetti di riferimento e non solo da quelli del progetto.
+     */
+    public static List<Ticket> addIVandAV(List<Ticket> ticketsList, List<Release> releasesList, Map<String, Integer> estimatedIvs) throws IOException {
         List<Ticket> finalTicketsList = new ArrayList<>();
         Proportion proportion = new Proportion();
 
         for(Ticket ticket: ticketsList){
             if(ticket.getAv().isEmpty()){
-                //estimate and populate IV when is missing
-                proportion.fixTicketWithProportion(ticket, releasesList);
+                Integer knownIV = estimatedIvs.get(ticket.getTicketID());
+                if(knownIV != null){
+                    // the tickets resolved before are unchanged, so the estimate would be the same
+                    proportion.setEstimatedIV(ticket, knownIV, releasesList);
+                }else{
+                    //estimate and populate IV when is missing
+                    boolean coldStart = proportion.usesColdStart();
+                    proportion.fixTicketWithProportion(ticket, releasesList);
+                    if(!coldStart) estimatedIvs.put(ticket.getTicketID(), ticket.getIv().getId());
+                }
                 //populate releases in AV
                 completeAV(ticket, releasesList);
             }else{
@@ -105,14 +163,4 @@ public class JiraUtils {
             }
         }
     }
-
-    public static List<Ticket> returnConsistentTickets(List<Ticket> ticketList, LocalDate resolutionDate) {
-        List<Ticket> correctTicket = new ArrayList<>();
-
-        for(Ticket ticket: ticketList){
-            if(!ticket.getAv().isEmpty() && ticket.getResolutionDate().isBefore(resolutionDate))  correctTicket.add(ticket);
-        }
-
-        return correctTicket;
-    }
 }
@@ -0,0 +1,258 @@
+package utils;
+
+import org.json.JSONException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON reader: the document is read through a fixed-size buffer and exposed as a
+ * sequence of tokens, so memory use depends on the size of the single values that are read, not on
+ * the size of the document. Values that are not needed are skipped without being materialized.
+ * Syntax errors are reported as {@link JSONException}, like the org.json parser.
+ */
+public final class JsonPullParser implements Closeable {
+
+    public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, LITERAL, END_DOCUMENT }
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    private int[] stack = new int[32];
+    private int depth;
+
+    private Token peeked;
+    private String peekedText;
+    private final StringBuilder text = new StringBuilder();
+
+    public JsonPullParser(Reader in) {
+        this.in = in;
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    public Token peek() throws IOException {
+        if (peeked != null) return peeked;
+        int context = stack[depth - 1];
+        int c;
+        switch (context) {
+            case EMPTY_ARRAY:
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') return peeked = Token.END_ARRAY;
+                if (context == NONEMPTY_ARRAY) {
+                    if (c != ',') throw syntaxError("Expected ',' or ']'");
+                    c = nextNonWhitespace();
+                }
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                return readValue(c);
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') return peeked = Token.END_OBJECT;
+                if (context == NONEMPTY_OBJECT) {
+                    if (c != ',') throw syntaxError("Expected ',' or '}'");
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') throw syntaxError("Expected a name");
+                stack[depth - 1] = DANGLING_NAME;
+                peekedText = readString();
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') throw syntaxError("Expected ':'");
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                return readValue(nextNonWhitespace());
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                return readValue(nextNonWhitespace());
+            default:
+                if (nextNonWhitespace() != -1) throw syntaxError("Unexpected content after the document");
+                return peeked = Token.END_DOCUMENT;
+        }
+    }
+
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return peekedText;
+    }
+
+    /**
+     * Returns the next scalar value as text: strings without quotes, numbers and literals as written.
+     */
+    public String nextString() throws IOException {
+        Token token = peek();
+        if (token != Token.STRING && token != Token.NUMBER && token != Token.LITERAL) {
+            throw syntaxError("Expected a value but was " + token);
+        }
+        peeked = null;
+        return peekedText;
+    }
+
+    public int nextInt() throws IOException {
+        String value = nextString();
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new JSONException("Expected an int but was " + value, e);
+        }
+    }
+
+    /**
+     * Skips the next value, with everything nested in it.
+     */
+    public void skipValue() throws IOException {
+        int nesting = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT: beginObject(); nesting++; break;
+                case BEGIN_ARRAY: beginArray(); nesting++; break;
+                case END_OBJECT: endObject(); nesting--; break;
+                case END_ARRAY: endArray(); nesting--; break;
+                case END_DOCUMENT: throw syntaxError("Unexpected end of document");
+                default: peeked = null; break;
+            }
+        } while (nesting > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(Token token) throws IOException {
+        if (peek() != token) throw syntaxError("Expected " + token + " but was " + peeked);
+        peeked = null;
+    }
+
+    private void push(int context) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = context;
+    }
+
+    private Token readValue(int c) throws IOException {
+        switch (c) {
+            case '{': return peeked = Token.BEGIN_OBJECT;
+            case '[': return peeked = Token.BEGIN_ARRAY;
+            case '"':
+                peekedText = readString();
+                return peeked = Token.STRING;
+            case -1: throw syntaxError("Unexpected end of document");
+            default:
+                peekedText = readUnquoted((char) c);
+                boolean literal = peekedText.equals("true") || peekedText.equals("false") || peekedText.equals("null");
+                return peeked = literal ? Token.LITERAL : Token.NUMBER;
+        }
+    }
+
+    // The opening quote has already been read
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == -1) throw syntaxError("Unterminated string");
+            if (c == '"') return text.toString();
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case 'b': text.append('\b'); break;
+                case 'f': text.append('\f'); break;
+                case 'n': text.append('\n'); break;
+                case 'r': text.append('\r'); break;
+                case 't': text.append('\t'); break;
+                case 'u': text.append(readUnicodeEscape()); break;
+                case '"': case '\\': case '/': text.append((char) escaped); break;
+                default: throw syntaxError("Invalid escape sequence");
+            }
+        }
+    }
+
+    private char readUnicodeEscape() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) throw syntaxError("Invalid unicode escape");
+            value = (value << 4) | digit;
+        }
+        return (char) value;
+    }
+
+    private String readUnquoted(char first) throws IOException {
+        text.setLength(0);
+        text.append(first);
+        while (fillIfNeeded()) {
+            char c = buffer[position];
+            if (c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) break;
+            text.append(c);
+            position++;
+        }
+        return text.toString();
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+        return c;
+    }
+
+    private int read() throws IOException {
+        return fillIfNeeded() ? buffer[position++] : -1;
+    }
+
+    private boolean fillIfNeeded() throws IOException {
+        if (position < limit) return true;
+        limit = in.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private static JSONException syntaxError(String message) {
+        return new JSONException(message);
+    }
+}
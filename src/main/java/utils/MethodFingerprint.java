@@ -0,0 +1,60 @@
+package utils;
+
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+
+/**
+ * 64-bit fingerprint of a method body, folded (FNV-1a) over its tokens without whitespace and comments:
+ * bodies that differ only in layout or comments get the same fingerprint.
+ * Every token is closed by its length, so distinct token sequences are encoded differently.
+ * The same folding is used for JavaParser tokens and for the tokens of {@link JavaMethodScanner}.
+ */
+public final class MethodFingerprint {
+
+    public static final long EMPTY_BODY = 0L;
+
+    static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long TOKEN_END = 1L << 32; // outside the range of char values
+
+    private MethodFingerprint() {
+    }
+
+    public static long of(MethodDeclaration md) {
+        if (!md.getBody().isPresent()) return EMPTY_BODY;
+        BlockStmt body = md.getBody().get();
+        long hash = OFFSET_BASIS;
+        if (body.getTokenRange().isPresent()) {
+            for (JavaToken token : body.getTokenRange().get()) {
+                if (token.getCategory().isWhitespaceOrComment()) continue;
+                String text = token.getText();
+                hash = addToken(hash, text, 0, text.length());
+            }
+        } else {
+            // Without stored tokens, fall back on the printed body
+            String text = body.toString();
+            for (int i = 0; i < text.length(); i++) {
+                hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return finish(hash);
+    }
+
+    static long addToken(long hash, CharSequence source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ source.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ (TOKEN_END | (end - start))) * FNV_PRIME;
+    }
+
+    // MurmurHash3 finalizer: spreads the differences accumulated by FNV over all the bits
+    static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,226 @@
+package utils;
+
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.InstanceOfExpr;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import model.MethodMetrics;
+import model.SourceMethod;
+
+import java.util.Optional;
+
+/**
+ * A visitor that computes all the static metrics of a method in a single traversal of its AST:
+ * branches, maximum nesting depth of control structures, local variables and the counters behind
+ * the code smells. LOC is taken from the line positions of the body tokens.
+ * A new instance is used for every method, so {@link #measure(MethodDeclaration)} is thread-safe.
+ */
+public class MethodMetricsVisitor extends VoidVisitorAdapter<Void> {
+
+    private static final int MAX_CYCLOMATIC_COMPLEXITY = 7;
+    private static final int MAX_LOC = 30;
+    private static final int MAX_NESTING_DEPTH = 4;
+    private static final int MAX_PARAMETERS = 5;
+    private static final int MAX_INSTANCEOF = 2;
+    private static final int MAX_MAGIC_NUMBERS = 1;
+
+    // Outside the body (annotations, parameters) only branches are counted, as findAll on the declaration did
+    private boolean inBody;
+    private int currentDepth;
+    private int maxDepth;
+    private int branches;
+    private int localVariables;
+    private int switchesWithoutDefault;
+    private int emptyCatches;
+    private int instanceOfs;
+    private int magicNumbers;
+
+    private MethodMetricsVisitor() {
+    }
+
+    public static MethodMetrics measure(MethodDeclaration md) {
+        String signature = SourceMethod.getSignature(md);
+        int numParameters = md.getParameters().size();
+        if (!md.getBody().isPresent()) {
+            return new MethodMetrics(signature, 0, numParameters, 0, 0, 0, 0);
+        }
+        BlockStmt body = md.getBody().get();
+
+        MethodMetricsVisitor visitor = new MethodMetricsVisitor();
+        for (Node child : md.getChildNodes()) {
+            if (child != body) {
+                child.accept(visitor, null);
+            }
+        }
+        visitor.inBody = true;
+        body.accept(visitor, null);
+
+        int loc = countLinesOfCode(body);
+        int codeSmells = visitor.countCodeSmells(md, loc, numParameters);
+        return new MethodMetrics(signature, loc, numParameters, visitor.branches, visitor.maxDepth, codeSmells, visitor.localVariables);
+    }
+
+    /**
+     * Counts the body lines holding code: lines with only comments, or with just an opening or
+     * closing brace, are not counted.
+     */
+    public static int countLinesOfCode(MethodDeclaration md) {
+        return md.getBody().isPresent() ? countLinesOfCode(md.getBody().get()) : 0;
+    }
+
+    private static int countLinesOfCode(BlockStmt body) {
+        if (!body.getTokenRange().isPresent()) {
+            // Without stored tokens every line strictly inside the braces counts
+            return body.getRange().map(r -> Math.max(0, r.end.line - r.begin.line - 1)).orElse(0);
+        }
+        CodeLineCounter counter = new CodeLineCounter();
+        for (JavaToken token : body.getTokenRange().get()) {
+            if (token.getCategory().isWhitespaceOrComment()) continue;
+            Optional<Range> range = token.getRange();
+            if (range.isPresent()) {
+                counter.addToken(range.get().begin.line, range.get().end.line, isBrace(token));
+            }
+        }
+        return counter.getLoc();
+    }
+
+    private static boolean isBrace(JavaToken token) {
+        String text = token.getText();
+        return text.equals("{") || text.equals("}");
+    }
+
+    private int countCodeSmells(MethodDeclaration md, int loc, int numParameters) {
+        int smellCount = 0;
+        int cyclomaticComplexity = branches + 1;
+
+        if (cyclomaticComplexity > MAX_CYCLOMATIC_COMPLEXITY) smellCount++;
+        if (loc > MAX_LOC) smellCount++;
+        if (maxDepth > MAX_NESTING_DEPTH) smellCount++;
+        if (numParameters > MAX_PARAMETERS) smellCount++;
+        smellCount += switchesWithoutDefault;
+        smellCount += emptyCatches;
+        if (instanceOfs > MAX_INSTANCEOF) smellCount++;
+
+        String methodName = md.getNameAsString();
+        if ((methodName.equals("equals") || methodName.equals("hashCode") || methodName.equals("toString"))
+                && md.getAnnotations().stream().noneMatch(a -> a.getNameAsString().equals("Override"))) {
+            smellCount++;
+        }
+        if (magicNumbers > MAX_MAGIC_NUMBERS) smellCount++;
+        return smellCount;
+    }
+
+    private void enterNode() {
+        if (!inBody) return;
+        currentDepth++;
+        if (currentDepth > maxDepth) {
+            maxDepth = currentDepth;
+        }
+    }
+
+    private void exitNode() {
+        if (!inBody) return;
+        currentDepth--;
+    }
+
+    @Override
+    public void visit(IfStmt n, Void arg) {
+        branches++;
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(ConditionalExpr n, Void arg) {
+        branches++;
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(ForStmt n, Void arg) {
+        branches++;
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(ForEachStmt n, Void arg) {
+        branches++;
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(WhileStmt n, Void arg) {
+        branches++;
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(DoStmt n, Void arg) {
+        branches++;
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(SwitchStmt n, Void arg) {
+        branches += n.getEntries().size();
+        if (inBody && n.getEntries().stream().noneMatch(entry -> entry.getLabels().isEmpty())) {
+            switchesWithoutDefault++;
+        }
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(CatchClause n, Void arg) {
+        branches++;
+        if (inBody && n.getBody().getStatements().isEmpty()) {
+            emptyCatches++;
+        }
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(TryStmt n, Void arg) {
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(LambdaExpr n, Void arg) {
+        enterNode(); super.visit(n, arg); exitNode();
+    }
+
+    @Override
+    public void visit(VariableDeclarator n, Void arg) {
+        if (inBody) localVariables++;
+        super.visit(n, arg);
+    }
+
+    @Override
+    public void visit(InstanceOfExpr n, Void arg) {
+        if (inBody) instanceOfs++;
+        super.visit(n, arg);
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpr n, Void arg) {
+        if (inBody && isMagicNumber(n)) magicNumbers++;
+        super.visit(n, arg);
+    }
+
+    // Literals other than 0, 1 and -1, unless they directly initialize a variable
+    private static boolean isMagicNumber(IntegerLiteralExpr n) {
+        boolean magicValue;
+        try {
+            int val = n.asInt();
+            magicValue = val != 0 && val != 1 && val != -1;
+        } catch (Exception e) {
+            magicValue = true;
+        }
+        return magicValue && n.getParentNode().map(p -> !(p instanceof VariableDeclarator)).orElse(true);
+    }
+}
@@ -0,0 +1,232 @@
+package utils;
+
+import model.MethodChange;
+import model.MethodMetrics;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent store of Phase 1 mining results for one project, kept under cacheFiles/&lt;project&gt;/.
+ * It holds the methods changed by every processed commit and the static metrics of every analyzed
+ * Java blob, keyed by commit and blob id: both are immutable, so a record never goes stale as long
+ * as the files are selected in the same way. The methods changed by a commit depend on the
+ * {@link SourcePathFilter} as well, which is written in the header of their file: when the filter
+ * changes, the file is discarded.
+ * The files are append-only and every record is closed by a marker and flushed as soon as it is
+ * written. When the cache is opened, a record cut short by a crash is dropped and the file is
+ * truncated after the last complete one, so an interrupted run resumes from where it stopped.
+ */
+public class MiningCache implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(MiningCache.class.getName());
+    private static final String CACHE_FILES_DIR = "cacheFiles/";
+    private static final String COMMIT_CHANGES_FILE = "commitChanges.bin";
+    private static final String BLOB_METRICS_FILE = "blobMetrics.bin";
+
+    private static final int MAGIC = 0x4D494E45;
+    // Bump whenever change detection or metric computation changes: older files are then discarded
+    private static final int FORMAT_VERSION = 5;
+    private static final byte END_OF_RECORD = 0x1E;
+    private static final int OBJECT_ID_LENGTH = 20;
+
+    private final Map<ObjectId, List<MethodChange>> commitChanges = new HashMap<>();
+    private final Map<ObjectId, List<MethodMetrics>> blobMetrics = new HashMap<>();
+    private final DataOutputStream commitChangesOut;
+    private final DataOutputStream blobMetricsOut;
+
+    public MiningCache(Path directory, SourcePathFilter sourceFilter) throws IOException {
+        Files.createDirectories(directory);
+        Path commitChangesPath = directory.resolve(COMMIT_CHANGES_FILE);
+        Path blobMetricsPath = directory.resolve(BLOB_METRICS_FILE);
+        // The metrics of a blob do not depend on which files are selected
+        byte[] commitChangesHeader = header(sourceFilter.toString());
+        byte[] blobMetricsHeader = header("");
+        loadCommitChanges(commitChangesPath, commitChangesHeader);
+        loadBlobMetrics(blobMetricsPath, blobMetricsHeader);
+        this.commitChangesOut = openForAppend(commitChangesPath, commitChangesHeader);
+        this.blobMetricsOut = openForAppend(blobMetricsPath, blobMetricsHeader);
+    }
+
+    public static MiningCache open(String project, SourcePathFilter sourceFilter) throws IOException {
+        return new MiningCache(Paths.get(CACHE_FILES_DIR + project.toLowerCase()), sourceFilter);
+    }
+
+    /**
+     * Returns the methods changed by the commit, or null if the commit has not been processed yet.
+     */
+    public List<MethodChange> getCommitChanges(ObjectId commitId) {
+        return commitChanges.get(commitId);
+    }
+
+    public void putCommitChanges(ObjectId commitId, List<MethodChange> changes) throws IOException {
+        writeObjectId(commitChangesOut, commitId);
+        commitChangesOut.writeInt(changes.size());
+        for (MethodChange change : changes) {
+            commitChangesOut.writeUTF(change.getFullyQualifiedName());
+            commitChangesOut.writeInt(change.getOldLoc());
+            commitChangesOut.writeInt(change.getNewLoc());
+            commitChangesOut.writeLong(change.getBodyHash());
+        }
+        endRecord(commitChangesOut);
+        commitChanges.put(commitId.copy(), changes);
+    }
+
+    /**
+     * Returns the metrics of all the blobs recorded so far.
+     */
+    public Map<ObjectId, List<MethodMetrics>> getBlobMetrics() {
+        return Collections.unmodifiableMap(blobMetrics);
+    }
+
+    public void putBlobMetrics(ObjectId blobId, List<MethodMetrics> metrics) throws IOException {
+        writeObjectId(blobMetricsOut, blobId);
+        blobMetricsOut.writeInt(metrics.size());
+        for (MethodMetrics m : metrics) {
+            blobMetricsOut.writeUTF(m.getSignature());
+            blobMetricsOut.writeInt(m.getLoc());
+            blobMetricsOut.writeInt(m.getNumParameters());
+            blobMetricsOut.writeInt(m.getNumBranches());
+            blobMetricsOut.writeInt(m.getNestingDepth());
+            blobMetricsOut.writeInt(m.getNumCodeSmells());
+            blobMetricsOut.writeInt(m.getNumLocalVariables());
+        }
+        endRecord(blobMetricsOut);
+        blobMetrics.put(blobId.copy(), metrics);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            commitChangesOut.close();
+        } finally {
+            blobMetricsOut.close();
+        }
+    }
+
+    private void loadCommitChanges(Path path, byte[] header) throws IOException {
+        byte[] content = readContent(path, header);
+        if (content == null) return;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, header.length, content.length - header.length));
+        long validLength = header.length;
+        try {
+            while (in.available() > 0) {
+                ObjectId commitId = readObjectId(in);
+                int count = in.readInt();
+                List<MethodChange> changes = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    changes.add(new MethodChange(in.readUTF(), in.readInt(), in.readInt(), in.readLong()));
+                }
+                if (in.readByte() != END_OF_RECORD) break;
+                commitChanges.put(commitId, changes);
+                validLength = content.length - (long) in.available();
+            }
+        } catch (IOException e) {
+            // Incomplete or corrupted record: it is dropped together with everything after it
+        }
+        truncate(path, validLength);
+    }
+
+    private void loadBlobMetrics(Path path, byte[] header) throws IOException {
+        byte[] content = readContent(path, header);
+        if (content == null) return;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, header.length, content.length - header.length));
+        long validLength = header.length;
+        try {
+            while (in.available() > 0) {
+                ObjectId blobId = readObjectId(in);
+                int count = in.readInt();
+                List<MethodMetrics> metrics = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    metrics.add(new MethodMetrics(in.readUTF(), in.readInt(), in.readInt(), in.readInt(),
+                            in.readInt(), in.readInt(), in.readInt()));
+                }
+                if (in.readByte() != END_OF_RECORD) break;
+                blobMetrics.put(blobId, metrics);
+                validLength = content.length - (long) in.available();
+            }
+        } catch (IOException e) {
+            // Incomplete or corrupted record: it is dropped together with everything after it
+        }
+        truncate(path, validLength);
+    }
+
+    // Returns the file content, or null (and removes the file) if there is nothing usable
+    private static byte[] readContent(Path path, byte[] header) throws IOException {
+        if (!Files.exists(path)) return null;
+        byte[] content = Files.readAllBytes(path);
+        if (content.length < header.length || !Arrays.equals(Arrays.copyOf(content, header.length), header)) {
+            LOGGER.log(Level.INFO, "Discarding mining cache file with another format or source filter: {0}", path);
+            Files.delete(path);
+            return null;
+        }
+        return content;
+    }
+
+    // Magic, format version and the selection of the files the records were computed on
+    private static byte[] header(String selection) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(selection);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static DataOutputStream openForAppend(Path path, byte[] header) throws IOException {
+        boolean isNew = !Files.exists(path);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        if (isNew) {
+            out.write(header);
+            out.flush();
+        }
+        return out;
+    }
+
+    private static void truncate(Path path, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() > length) {
+                LOGGER.log(Level.INFO, "Dropping incomplete records at the end of {0}", path);
+                channel.truncate(length);
+            }
+        }
+    }
+
+    private static void endRecord(DataOutputStream out) throws IOException {
+        out.writeByte(END_OF_RECORD);
+        out.flush();
+    }
+
+    private static void writeObjectId(DataOutputStream out, ObjectId id) throws IOException {
+        byte[] raw = new byte[OBJECT_ID_LENGTH];
+        id.copyRawTo(raw, 0);
+        out.write(raw);
+    }
+
+    private static ObjectId readObjectId(DataInputStream in) throws IOException {
+        byte[] raw = new byte[OBJECT_ID_LENGTH];
+        in.readFully(raw);
+        return ObjectId.fromRaw(raw);
+    }
+}
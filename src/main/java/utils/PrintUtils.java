@@ -1,13 +1,10 @@
 package utils;
 
 import model.*;
-import org.eclipse.jgit.revwalk.RevCommit;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -38,7 +35,7 @@ public class PrintUtils {
     }
 
     // ... [I metodi printCommits, printTickets, printReleases, printMethods rimangono invariati] ...
-    public static void printCommits(String project, List<RevCommit> commitList, String name) throws IOException {
+    public static void printCommits(String project, CommitTable commits, String name) throws IOException {
         project = project.toLowerCase();
         File file = new File(MAINDIR + project);
         if (!file.exists() && !file.mkdirs()) {
@@ -48,10 +45,10 @@ public class PrintUtils {
         file = new File(MAINDIR + project + SLASH + name);
         try(FileWriter fileWriter = new FileWriter(file)) {
             fileWriter.append("id,committer,creationDate\n");
-            for (RevCommit commit: commitList){
-                fileWriter.append(commit.getName()).append(",")
-                        .append(commit.getCommitterIdent().getName()).append(",")
-                        .append(String.valueOf(LocalDate.parse((new SimpleDateFormat("yyyy-MM-dd").format(commit.getCommitterIdent().getWhen()))))).append(DELIMITER);
+            for (int commit = 0; commit < commits.size(); commit++){
+                fileWriter.append(commits.getName(commit)).append(",")
+                        .append(commits.getCommitterName(commit)).append(",")
+                        .append(String.valueOf(commits.getCommitDate(commit))).append(DELIMITER);
             }
         } catch (IOException e) {
             LOGGER.info(ERROR);
@@ -124,7 +121,7 @@ public class PrintUtils {
         }
     }
 
-    public static void printMethods(String project, List<JavaMethod> methods, String name) throws IOException {
+    public static void printMethods(String project, MethodTable methods, CommitTable commits, String name) throws IOException {
         project = project.toLowerCase();
         File file = new File(MAINDIR + project);
         if (!file.exists() && !file.mkdirs()) {
@@ -133,12 +130,12 @@ public class PrintUtils {
         file = new File(MAINDIR + project + SLASH + name);
         try (FileWriter fileWriter = new FileWriter(file)) {
             fileWriter.append("fullyQualifiedName,firstCommit,#Commits\n");
-            for (JavaMethod m : methods) {
-                RevCommit firstCommit = m.getFirstCommit();
-                String firstCommitName = (firstCommit != null) ? firstCommit.getName() : "";
-                fileWriter.append(escapeCSV(m.getFullyQualifiedName())).append(",")
+            for (int row = 0; row < methods.size(); row++) {
+                int firstCommit = methods.getFirstCommit(row);
+                String firstCommitName = (firstCommit >= 0) ? commits.getName(firstCommit) : "";
+                fileWriter.append(escapeCSV(methods.getFullyQualifiedName(row))).append(",")
                         .append(escapeCSV(firstCommitName)).append(",")
-                        .append(String.valueOf(m.getCommits().size()))
+                        .append(String.valueOf(methods.getNumRevisions(row))) // un commit per revisione
                         .append(DELIMITER);
             }
         } catch (IOException e) {
@@ -147,7 +144,7 @@ public class PrintUtils {
     }
 
     // --- METODO MODIFICATO E AGGIORNATO ---
-    public static void printMethodsDataset(String projectName, List<JavaMethod> methods) throws IOException {
+    public static void printMethodsDataset(String projectName, MethodTable methods) throws IOException {
         String projectDirName = projectName.toLowerCase();
         File projectCsvDir = new File(CSV_FILES_DIR + projectDirName);
 
@@ -186,36 +183,34 @@ public class PrintUtils {
                     .append(DELIMITER);
 
             // Scrivi i dati per ogni metodo
-            for (JavaMethod method : methods) {
+            for (int row = 0; row < methods.size(); row++) {
                 // --- NUOVA PARTE: Aggiornamento delle statistiche ---
                 totalInstances++;
-                if (method.isBuggy()) {
+                if (methods.isBuggy(row)) {
                     buggyInstances++;
                 }
-                if (method.getRelease() != null) {
-                    uniqueReleaseIDs.add(method.getRelease().getId());
-                }
+                uniqueReleaseIDs.add(methods.getReleaseId(row));
                 // --- FINE NUOVA PARTE ---
 
-                String releaseIdStr = (method.getRelease() != null) ? String.valueOf(method.getRelease().getId()) : "N/A";
+                String releaseIdStr = String.valueOf(methods.getReleaseId(row));
 
                 // Il resto della scrittura del file rimane identico...
-                fileWriter.append(escapeCSV(method.getFullyQualifiedName())).append(SEPARATOR)
+                fileWriter.append(escapeCSV(methods.getFullyQualifiedName(row))).append(SEPARATOR)
                         .append(releaseIdStr).append(SEPARATOR)
-                        .append(String.valueOf(method.getLoc())).append(SEPARATOR)
-                        .append(String.valueOf(method.getNumParameters())).append(SEPARATOR)
-                        .append(String.valueOf(method.getNumBranches())).append(SEPARATOR)
-                        .append(String.valueOf(method.getNestingDepth())).append(SEPARATOR)
-                        .append(String.valueOf(method.getNumCodeSmells())).append(SEPARATOR)
-                        .append(String.valueOf(method.getNumLocalVariables())).append(SEPARATOR)
-                        .append(String.valueOf(method.getNumRevisions())).append(SEPARATOR)
-                        .append(String.valueOf(method.getNumAuthors())).append(SEPARATOR)
-                        .append(String.valueOf(method.getTotalStmtAdded())).append(SEPARATOR)
-                        .append(String.valueOf(method.getTotalStmtDeleted())).append(SEPARATOR)
-                        .append(String.valueOf(method.getMaxChurn())).append(SEPARATOR)
-                        .append(String.format(Locale.US, "%.4f", method.getAvgChurn())).append(SEPARATOR)
-                        .append(String.valueOf(method.getHasFixHistory())).append(SEPARATOR)
-                        .append(method.isBuggy() ? "yes" : "no")
+                        .append(String.valueOf(methods.getLoc(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getNumParameters(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getNumBranches(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getNestingDepth(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getNumCodeSmells(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getNumLocalVariables(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getNumRevisions(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getNumAuthors(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getTotalStmtAdded(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getTotalStmtDeleted(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getMaxChurn(row))).append(SEPARATOR)
+                        .append(String.format(Locale.US, "%.4f", methods.getAvgChurn(row))).append(SEPARATOR)
+                        .append(String.valueOf(methods.getHasFixHistory(row))).append(SEPARATOR)
+                        .append(methods.isBuggy(row) ? "yes" : "no")
                         .append(DELIMITER);
             }
         } catch (IOException e) {
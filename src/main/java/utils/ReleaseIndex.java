@@ -0,0 +1,58 @@
+package utils;
+
+import model.CommitTable;
+import model.Release;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable index that maps a commit to the release it belongs to.
+ * A commit belongs to the first release whose date is on or after the commit date;
+ * commits dated after the last release (or not after 1970-01-01) have no release.
+ * Release dates are kept as epoch days in a sorted primitive array and commit dates are
+ * precomputed by the {@link CommitTable}, so every lookup is a binary search over a few longs.
+ */
+public final class ReleaseIndex {
+
+    private static final int NO_RELEASE = -1;
+
+    private final Release[] releases;
+    private final long[] releaseEpochDays;
+    private final long lowerBoundEpochDay;
+
+    /**
+     * @param releasesByDate the releases sorted by date; later changes to the list are not seen by the index.
+     */
+    public ReleaseIndex(List<Release> releasesByDate) {
+        this.releases = releasesByDate.toArray(new Release[0]);
+        this.releaseEpochDays = new long[releases.length];
+        for (int i = 0; i < releases.length; i++) {
+            releaseEpochDays[i] = releases[i].getDate().toEpochDay();
+        }
+        this.lowerBoundEpochDay = Instant.EPOCH.atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    public Release getReleaseOfCommit(CommitTable commits, int commit) {
+        int position = findPosition(commits.getEpochDay(commit));
+        return position == NO_RELEASE ? null : releases[position];
+    }
+
+    private int findPosition(long epochDay) {
+        if (epochDay <= lowerBoundEpochDay) {
+            return NO_RELEASE;
+        }
+        int position = Arrays.binarySearch(releaseEpochDays, epochDay);
+        if (position < 0) {
+            position = -position - 1;
+        } else {
+            // a parità di data vale la prima release
+            while (position > 0 && releaseEpochDays[position - 1] == epochDay) {
+                position--;
+            }
+        }
+        return position < releases.length ? position : NO_RELEASE;
+    }
+}
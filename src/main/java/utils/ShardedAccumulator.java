@@ -0,0 +1,134 @@
+package utils;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Applies a stream of events on a fixed set of shards, each owned by a single thread. An event goes to
+ * the shard selected by its key, and every shard consumes its events in the order they were added:
+ * as long as all the state touched by an event belongs to its key, the result is the same as applying
+ * the events sequentially, without any lock. Events travel in batches over bounded queues, so a slow
+ * shard stalls the producer. With one shard the events are applied directly on the calling thread.
+ */
+public class ShardedAccumulator<E> implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 256;
+    private static final List<Object> END_OF_INPUT = Collections.emptyList();
+
+    private final Consumer<E> consumer;
+    private final List<Shard> shards = new ArrayList<>();
+
+    public ShardedAccumulator(String name, int shards, int queueCapacity, Consumer<E> consumer) {
+        this.consumer = consumer;
+        for (int i = 0; shards > 1 && i < shards; i++) {
+            this.shards.add(new Shard(name + "-" + i, queueCapacity));
+        }
+    }
+
+    public void add(int key, E event) throws InterruptedIOException {
+        if (shards.isEmpty()) {
+            consumer.accept(event);
+            return;
+        }
+        Shard shard = shards.get(Math.floorMod(key, shards.size()));
+        shard.pending.add(event);
+        if (shard.pending.size() == BATCH_SIZE) {
+            shard.send();
+        }
+    }
+
+    /**
+     * Waits until every event added so far has been applied. Failures of the shard threads are rethrown here.
+     */
+    public void finish() throws InterruptedIOException {
+        for (Shard shard : shards) {
+            shard.send();
+            shard.put(END_OF_INPUT);
+        }
+        for (Shard shard : shards) {
+            shard.join();
+        }
+        for (Shard shard : shards) {
+            if (shard.failure instanceof RuntimeException) throw (RuntimeException) shard.failure;
+            if (shard.failure instanceof Error) throw (Error) shard.failure;
+        }
+    }
+
+    /**
+     * Stops the shard threads: events not applied yet are dropped. It does nothing after {@link #finish()}.
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.thread.interrupt();
+        }
+    }
+
+    /**
+     * A single-threaded consumer with the batch being filled for it.
+     */
+    private final class Shard implements Runnable {
+        private final BlockingQueue<List<?>> queue;
+        private final Thread thread;
+        private List<Object> pending = new ArrayList<>(BATCH_SIZE);
+        private volatile Throwable failure;
+
+        private Shard(String name, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            try {
+                while (true) {
+                    List<?> batch = queue.take();
+                    if (batch == END_OF_INPUT) return;
+                    // After a failure the remaining batches are only drained, so that the producer never blocks
+                    if (failure != null) continue;
+                    try {
+                        for (Object event : batch) {
+                            consumer.accept((E) event);
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure = e;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void send() throws InterruptedIOException {
+            if (pending.isEmpty()) return;
+            put(pending);
+            pending = new ArrayList<>(BATCH_SIZE);
+        }
+
+        private void put(List<?> batch) throws InterruptedIOException {
+            try {
+                queue.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + thread.getName());
+            }
+        }
+
+        private void join() throws InterruptedIOException {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + thread.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package utils;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Selects the source files to analyze: paths with the given suffix that are not inside one of the
+ * excluded directories. A directory is excluded at any depth below the root, that is when the path
+ * contains {@code /name/}. The same selection is available as a JGit
+ * {@link TreeFilter}, so tree walks and diffs skip excluded subtrees and never read the blobs of
+ * files that are not analyzed.
+ */
+public final class SourcePathFilter {
+
+    /** Java files outside test directories, the selection used by the analysis. */
+    public static final SourcePathFilter JAVA_SOURCES = new SourcePathFilter(".java", "test");
+
+    private final String suffix;
+    private final List<String> excludedSegments;
+
+    public SourcePathFilter(String suffix, String... excludedDirectories) {
+        this.suffix = suffix;
+        this.excludedSegments = Arrays.asList(Arrays.stream(excludedDirectories).map(d -> "/" + d + "/").toArray(String[]::new));
+    }
+
+    public boolean accepts(String path) {
+        return path.endsWith(suffix) && !isExcluded(path);
+    }
+
+    /**
+     * Returns a new filter for TreeWalk and DiffFormatter with the same selection.
+     */
+    public TreeFilter toTreeFilter() {
+        TreeFilter suffixFilter = PathSuffixFilter.create(suffix);
+        return excludedSegments.isEmpty() ? suffixFilter : AndTreeFilter.create(suffixFilter, new ExcludedDirectoriesFilter());
+    }
+
+    /**
+     * Describes the selection, e.g. {@code *.java -/test/}: two filters with the same description select the same files.
+     */
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder("*").append(suffix);
+        for (String segment : excludedSegments) {
+            description.append(" -").append(segment);
+        }
+        return description.toString();
+    }
+
+    private boolean isExcluded(String path) {
+        for (String segment : excludedSegments) {
+            if (path.contains(segment)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drops the excluded directories, and everything below them, as soon as the walk reaches them.
+     */
+    private final class ExcludedDirectoriesFilter extends TreeFilter {
+
+        @Override
+        public boolean include(TreeWalk walker) {
+            String path = walker.getPathString();
+            // The files of a subtree contain its path followed by '/'
+            return !isExcluded(walker.isSubtree() ? path + "/" : path);
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return false;
+        }
+
+        @Override
+        public TreeFilter clone() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "EXCLUDE" + excludedSegments;
+        }
+    }
+}
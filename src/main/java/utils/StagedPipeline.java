@@ -0,0 +1,222 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A three-stage producer/consumer pipeline over a list of items. A single loader thread reads the
+ * items in order (typically git object I/O through one ObjectReader), a pool of workers processes
+ * what was loaded (parsing), and the calling thread receives the results in input order as the
+ * single writer of the aggregated state, so the outcome does not depend on the number of workers.
+ * The stages are joined by bounded queues and at most a fixed window of items is in flight: a slow
+ * stage stalls the ones before it instead of filling the heap. With one worker every item goes
+ * through the three stages on the calling thread. Busy time and throughput of each stage are
+ * reported at the end of a run.
+ */
+public class StagedPipeline<T, L, R> {
+
+    @FunctionalInterface
+    public interface Loader<T, L> {
+        L load(T item) throws IOException;
+    }
+
+    /**
+     * Called concurrently by the workers: it must not touch shared mutable state.
+     */
+    @FunctionalInterface
+    public interface Worker<T, L, R> {
+        R process(T item, L loaded) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Aggregator<T, R> {
+        void accept(T item, R result) throws IOException;
+    }
+
+    private static final int END_OF_INPUT = -1;
+
+    private final String name;
+    private final int workers;
+    private final int queueCapacity;
+    private final StageStats loadStats = new StageStats("load", 1);
+    private final StageStats processStats;
+    private final StageStats aggregateStats = new StageStats("aggregate", 1);
+
+    public StagedPipeline(String name, int workers, int queueCapacity) {
+        this.name = name;
+        this.workers = Math.max(1, workers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.processStats = new StageStats("process", this.workers);
+    }
+
+    public void run(List<T> items, Loader<T, L> loader, Worker<T, L, R> worker, Aggregator<T, R> aggregator) throws IOException {
+        long start = System.nanoTime();
+        if (workers == 1) {
+            for (T item : items) {
+                long loadStart = System.nanoTime();
+                L loaded = loader.load(item);
+                long processStart = loadStats.record(loadStart);
+                R result = worker.process(item, loaded);
+                long aggregateStart = processStats.record(processStart);
+                aggregator.accept(item, result);
+                aggregateStats.record(aggregateStart);
+            }
+        } else {
+            runConcurrently(items, loader, worker, aggregator);
+        }
+        report(items.size(), System.nanoTime() - start);
+    }
+
+    private void runConcurrently(List<T> items, Loader<T, L> loader, Worker<T, L, R> worker, Aggregator<T, R> aggregator) throws IOException {
+        BlockingQueue<Slot<L>> loadedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Slot<R>> resultQueue = new ArrayBlockingQueue<>(queueCapacity);
+        // Also bounds the results waiting to be delivered in order
+        Semaphore window = new Semaphore(2 * queueCapacity + workers);
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            executor.execute(() -> loadAll(items, loader, loadedQueue, window));
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> processAll(items, worker, loadedQueue, resultQueue));
+            }
+
+            Map<Integer, R> pending = new HashMap<>();
+            int next = 0;
+            while (next < items.size()) {
+                Slot<R> slot = resultQueue.take();
+                if (slot.failure != null) throw asIOException(slot.failure);
+                pending.put(slot.index, slot.value);
+                while (next < items.size() && pending.containsKey(next)) {
+                    long aggregateStart = System.nanoTime();
+                    aggregator.accept(items.get(next), pending.remove(next));
+                    aggregateStats.record(aggregateStart);
+                    window.release();
+                    next++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(name + " pipeline interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void loadAll(List<T> items, Loader<T, L> loader, BlockingQueue<Slot<L>> loadedQueue, Semaphore window) {
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                window.acquire();
+                long loadStart = System.nanoTime();
+                Slot<L> slot;
+                try {
+                    slot = new Slot<>(i, loader.load(items.get(i)), null);
+                } catch (IOException | RuntimeException | Error e) {
+                    loadedQueue.put(new Slot<>(i, null, e));
+                    return;
+                }
+                loadStats.record(loadStart);
+                loadedQueue.put(slot);
+            }
+            for (int i = 0; i < workers; i++) {
+                loadedQueue.put(new Slot<>(END_OF_INPUT, null, null));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void processAll(List<T> items, Worker<T, L, R> worker, BlockingQueue<Slot<L>> loadedQueue, BlockingQueue<Slot<R>> resultQueue) {
+        try {
+            while (true) {
+                Slot<L> loaded = loadedQueue.take();
+                if (loaded.index == END_OF_INPUT) return;
+                if (loaded.failure != null) {
+                    resultQueue.put(new Slot<>(loaded.index, null, loaded.failure));
+                    return;
+                }
+                long processStart = System.nanoTime();
+                Slot<R> result;
+                try {
+                    result = new Slot<>(loaded.index, worker.process(items.get(loaded.index), loaded.value), null);
+                } catch (IOException | RuntimeException | Error e) {
+                    result = new Slot<>(loaded.index, null, e);
+                }
+                processStats.record(processStart);
+                resultQueue.put(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(int items, long elapsedNanos) {
+        PrintUtils.Console.info(String.format(Locale.ROOT, "%s: %d items in %d ms (%s, %s, %s)", name, items,
+                elapsedNanos / 1_000_000, loadStats.describe(), processStats.describe(), aggregateStats.describe()));
+    }
+
+    private static IOException asIOException(Throwable failure) {
+        if (failure instanceof IOException) return (IOException) failure;
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        throw (Error) failure;
+    }
+
+    /**
+     * An item on its way through the pipeline, identified by its position in the input.
+     */
+    private static final class Slot<V> {
+        private final int index;
+        private final V value;
+        private final Throwable failure;
+
+        private Slot(int index, V value, Throwable failure) {
+            this.index = index;
+            this.value = value;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * Items and busy time of a stage; the throughput is measured on the busy time of its threads.
+     */
+    private static final class StageStats {
+        private final String stage;
+        private final int threads;
+        private final LongAdder items = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+
+        private StageStats(String stage, int threads) {
+            this.stage = stage;
+            this.threads = threads;
+        }
+
+        // Returns the current time, so that it can start the timing of the next stage
+        private long record(long startNanos) {
+            long now = System.nanoTime();
+            items.increment();
+            busyNanos.add(now - startNanos);
+            return now;
+        }
+
+        private String describe() {
+            long busy = busyNanos.sum();
+            double perSecond = busy > 0 ? items.sum() * 1e9 * threads / busy : 0;
+            return String.format(Locale.ROOT, "%s %d ms busy on %d thread(s), %.0f items/s", stage, busy / 1_000_000, threads, perSecond);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Multi-pattern matcher (Aho-Corasick) for Jira ticket keys such as BOOKKEEPER-123.
+ * The automaton is built once over all the keys, then every text is scanned in a single
+ * pass regardless of how many keys are searched for.
+ * A key only matches on word boundaries: the characters right before and right after an
+ * occurrence must not be letters or digits, so BOOKKEEPER-12 is not found inside BOOKKEEPER-123.
+ */
+public class TicketKeyMatcher {
+
+    // Ticket keys are plain ASCII: any other character sends the automaton back to the root
+    private static final int ALPHABET_SIZE = 128;
+    private static final int ROOT = 0;
+
+    private final String[] keys;
+    private int[][] transitions;
+    private int[] keyAtNode;
+    private int[] outputLink;
+    private int nodeCount;
+
+    public TicketKeyMatcher(Collection<String> ticketKeys) {
+        this.keys = ticketKeys.stream()
+                .filter(key -> key != null && !key.isEmpty() && key.chars().allMatch(c -> c < ALPHABET_SIZE))
+                .distinct()
+                .toArray(String[]::new);
+
+        int maxNodes = 1 + Arrays.stream(keys).mapToInt(String::length).sum();
+        this.transitions = new int[maxNodes][];
+        this.keyAtNode = new int[maxNodes];
+        this.outputLink = new int[maxNodes];
+        this.nodeCount = 1;
+        transitions[ROOT] = new int[ALPHABET_SIZE];
+        keyAtNode[ROOT] = -1;
+
+        for (int k = 0; k < keys.length; k++) {
+            addKey(k);
+        }
+        buildFailureLinks();
+    }
+
+    /**
+     * Returns the distinct keys found in the text, in order of first occurrence.
+     */
+    public List<String> findKeys(String text) {
+        List<String> found = new ArrayList<>();
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= ALPHABET_SIZE) {
+                state = ROOT;
+                continue;
+            }
+            state = transitions[state][c];
+            int node = keyAtNode[state] >= 0 ? state : outputLink[state];
+            while (node != ROOT) {
+                String key = keys[keyAtNode[node]];
+                if (isWordBoundary(text, i + 1 - key.length(), i + 1) && !found.contains(key)) {
+                    found.add(key);
+                }
+                node = outputLink[node];
+            }
+        }
+        return found;
+    }
+
+    private void addKey(int keyIndex) {
+        String key = keys[keyIndex];
+        int node = ROOT;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (transitions[node][c] == ROOT) {
+                int child = nodeCount++;
+                transitions[child] = new int[ALPHABET_SIZE];
+                keyAtNode[child] = -1;
+                transitions[node][c] = child;
+            }
+            node = transitions[node][c];
+        }
+        keyAtNode[node] = keyIndex;
+    }
+
+    // Breadth-first visit: missing transitions are filled in by following the failure links (deterministic automaton)
+    private void buildFailureLinks() {
+        int[] failure = new int[nodeCount];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET_SIZE; c++) {
+            int child = transitions[ROOT][c];
+            if (child != ROOT) {
+                failure[child] = ROOT;
+                outputLink[child] = ROOT;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int c = 0; c < ALPHABET_SIZE; c++) {
+                int child = transitions[node][c];
+                int fallback = transitions[failure[node]][c];
+                if (child == ROOT) {
+                    transitions[node][c] = fallback;
+                } else {
+                    failure[child] = fallback;
+                    outputLink[child] = keyAtNode[fallback] >= 0 ? fallback : outputLink[fallback];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    private static boolean isWordBoundary(String text, int start, int end) {
+        boolean startOk = start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+        boolean endOk = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+        return startOk && endOk;
+    }
+}
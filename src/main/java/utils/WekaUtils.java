@@ -1,6 +1,6 @@
 package utils;
 
-import model.JavaMethod;
+import model.MethodTable;
 import weka.core.Attribute;
 import weka.core.DenseInstance;
 import weka.core.Instances;
@@ -20,15 +20,29 @@ public final class WekaUtils {
     private WekaUtils() {}
 
     /**
-     * Builds a Weka Instances object from a list of JavaMethod objects.
-     * This method defines the structure of the dataset (attributes) and populates it.
+     * Builds a Weka Instances object from all the rows of a MethodTable.
      *
-     * @param methods The list of JavaMethod instances to convert.
+     * @param methods The method-release rows to convert.
      * @param relationName A name for the dataset (e.g., "BOOKKEEPER-Training").
      * @return An Instances object ready for use with Weka classifiers.
      */
+    public static Instances buildInstances(MethodTable methods, String relationName) {
+        return buildInstances(methods, Integer.MIN_VALUE, Integer.MAX_VALUE, relationName);
+    }
 
-    public static Instances buildInstances(List<JavaMethod> methods, String relationName) {
+    /**
+     * Builds a Weka Instances object from the rows of a MethodTable whose release ID is in
+     * [fromReleaseId, toReleaseId], in table order. The release column is read directly, so
+     * temporal splits need no intermediate list of methods.
+     * This method defines the structure of the dataset (attributes) and populates it.
+     *
+     * @param methods The method-release rows to convert.
+     * @param fromReleaseId The lowest release ID to include.
+     * @param toReleaseId The highest release ID to include.
+     * @param relationName A name for the dataset (e.g., "BOOKKEEPER-Training").
+     * @return An Instances object ready for use with Weka classifiers.
+     */
+    public static Instances buildInstances(MethodTable methods, int fromReleaseId, int toReleaseId, String relationName) {
         // 1. Definisci gli attributi (le colonne)
         ArrayList<Attribute> attributes = new ArrayList<>();
 
@@ -52,33 +66,38 @@ public final class WekaUtils {
         attributes.add(new Attribute("IsBuggy", classValues));
 
         // 2. Crea l'oggetto Instances vuoto con la struttura definita
-        Instances data = new Instances(relationName, attributes, methods.size());
+        int numRows = 0;
+        for (int row = 0; row < methods.size(); row++) {
+            if (isInReleaseRange(methods, row, fromReleaseId, toReleaseId)) numRows++;
+        }
+        Instances data = new Instances(relationName, attributes, numRows);
 
         // Imposta l'ultimo attributo come quello da predire
         data.setClassIndex(data.numAttributes() - 1);
 
         // 3. Popola l'oggetto Instances con i dati
-        for (JavaMethod method : methods) {
+        for (int row = 0; row < methods.size(); row++) {
+            if (!isInReleaseRange(methods, row, fromReleaseId, toReleaseId)) continue;
             // Crea un array di double per contenere i valori di una riga
             double[] values = new double[data.numAttributes()];
 
             // Popola l'array. L'ordine DEVE corrispondere a quello degli attributi sopra.
-            values[0] = method.getLoc();
-            values[1] = method.getNumParameters();
-            values[2] = method.getNumBranches();
-            values[3] = method.getNestingDepth();
-            values[4] = method.getNumCodeSmells();
-            values[5] = method.getNumLocalVariables();
-            values[6] = method.getNumRevisions();
-            values[7] = method.getNumAuthors();
-            values[8] = method.getTotalStmtAdded();
-            values[9] = method.getTotalStmtDeleted();
-            values[10] = method.getMaxChurn();
-            values[11] = method.getAvgChurn();
-            values[12] = method.getHasFixHistory();
+            values[0] = methods.getLoc(row);
+            values[1] = methods.getNumParameters(row);
+            values[2] = methods.getNumBranches(row);
+            values[3] = methods.getNestingDepth(row);
+            values[4] = methods.getNumCodeSmells(row);
+            values[5] = methods.getNumLocalVariables(row);
+            values[6] = methods.getNumRevisions(row);
+            values[7] = methods.getNumAuthors(row);
+            values[8] = methods.getTotalStmtAdded(row);
+            values[9] = methods.getTotalStmtDeleted(row);
+            values[10] = methods.getMaxChurn(row);
+            values[11] = methods.getAvgChurn(row);
+            values[12] = methods.getHasFixHistory(row);
 
             // Per l'attributo nominale, usiamo l'indice del valore ("no" = 0, "yes" = 1)
-            values[data.classIndex()] = method.isBuggy() ? 1.0 : 0.0;
+            values[data.classIndex()] = methods.isBuggy(row) ? 1.0 : 0.0;
 
             // Aggiungi la riga (istanza) al dataset
             data.add(new DenseInstance(1.0, values));
@@ -87,6 +106,11 @@ public final class WekaUtils {
         return data;
     }
 
+    private static boolean isInReleaseRange(MethodTable methods, int row, int fromReleaseId, int toReleaseId) {
+        int releaseId = methods.getReleaseId(row);
+        return releaseId >= fromReleaseId && releaseId <= toReleaseId;
+    }
+
     public static Instances loadInstancesFromCsv(String csvPath) throws IOException {
         CSVLoader loader = new CSVLoader();
         loader.setSource(new File(csvPath));
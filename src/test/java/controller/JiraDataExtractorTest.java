@@ -0,0 +1,216 @@
+package controller;
+
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+import model.Release;
+import model.Ticket;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import utils.JiraPageFetcher;
+import utils.JiraResponseCache;
+import utils.JiraUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lettura paginata dei ticket contro un server HTTP locale che restituisce pagine preparate.
+ */
+public class JiraDataExtractorTest extends TestCase {
+
+    private static final int TOTAL = 730;
+    private static final int PAGE_SIZE = 100;
+    private static final Pattern START_AT = Pattern.compile("startAt=(\\d+)");
+
+    private HttpServer server;
+    private String restUrl;
+    private List<Release> releases;
+
+    // Comportamento del server per startAt: numero di risposte 503 prima di quella buona, 404, pagina corta
+    private final Map<Integer, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+    private final Map<Integer, Boolean> missingPages = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> shortPages = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> slowPages = new ConcurrentHashMap<>();
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final Map<Integer, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Override
+    protected void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/rest/api/2/search", exchange -> {
+            int status;
+            byte[] body = null;
+            int running = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(running, Math::max);
+            try {
+                Matcher matcher = START_AT.matcher(exchange.getRequestURI().getRawQuery());
+                int startAt = matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+                requests.computeIfAbsent(startAt, k -> new AtomicInteger()).incrementAndGet();
+                events.add("start " + startAt);
+                // le prime pagine rispondono più tardi, così arrivano in un ordine diverso da quello richiesto
+                sleep(Math.max(0, 60 - startAt / 10) + slowPages.getOrDefault(startAt, 0));
+                events.add("end " + startAt);
+                AtomicInteger failures = failuresLeft.get(startAt);
+                if (missingPages.containsKey(startAt)) {
+                    status = 404;
+                } else if (failures != null && failures.getAndDecrement() > 0) {
+                    status = 503;
+                } else {
+                    int count = Math.min(shortPages.getOrDefault(startAt, PAGE_SIZE), TOTAL - startAt);
+                    status = 200;
+                    body = page(startAt, count).getBytes(StandardCharsets.UTF_8);
+                }
+            } finally {
+                // Prima di rispondere: ricevuta la risposta il client può già inviare la richiesta successiva
+                inFlight.decrementAndGet();
+            }
+            try {
+                exchange.sendResponseHeaders(status, body == null ? -1 : body.length);
+                if (body != null) {
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        restUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/rest/api/";
+
+        releases = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Release release = new Release("1." + i, LocalDate.of(2010, 1, 1).plusDays(60L * i));
+            release.setId(i + 1);
+            releases.add(release);
+        }
+        JiraUtils.setResponseCache(JiraResponseCache.open(JiraResponseCache.Mode.DISABLED));
+        JiraUtils.setIncrementalTicketSync(false);
+        JiraUtils.setPageFetcher(new JiraPageFetcher(4, 3, 10));
+    }
+
+    @Override
+    protected void tearDown() {
+        server.stop(0);
+        JiraUtils.setPageFetcher(new JiraPageFetcher(1, 3, 500));
+    }
+
+    public void testPagesAreReadConcurrentlyAndReassembledInOrder() throws IOException {
+        List<Ticket> tickets = new JiraDataExtractor("TEST", restUrl).getTickets(releases);
+
+        assertKeysInOrder(tickets);
+        assertTrue("pages should be requested concurrently", maxInFlight.get() > 1);
+        for (int startAt = 0; startAt < TOTAL; startAt += PAGE_SIZE) {
+            assertEquals("requests for page " + startAt, 1, requests.get(startAt).get());
+        }
+    }
+
+    public void testFollowingPagesAreRequestedWhileASlowPageIsRead() throws IOException {
+        slowPages.put(400, 500);
+
+        List<Ticket> tickets = new JiraDataExtractor("TEST", restUrl).getTickets(releases);
+
+        assertKeysInOrder(tickets);
+        // consumate le pagine 100, 200 e 300 si richiedono 500, 600 e 700 senza attendere la 400
+        assertTrue(events.toString(), events.indexOf("start 700") < events.indexOf("end 400"));
+    }
+
+    public void testFailingPageIsRetried() throws IOException {
+        failuresLeft.put(300, new AtomicInteger(2));
+
+        List<Ticket> tickets = new JiraDataExtractor("TEST", restUrl).getTickets(releases);
+
+        assertKeysInOrder(tickets);
+        assertEquals(3, requests.get(300).get());
+    }
+
+    public void testPageFailingMoreThanTheAttemptsIsReported() {
+        failuresLeft.put(300, new AtomicInteger(5));
+
+        long start = System.nanoTime();
+        try {
+            new JiraDataExtractor("TEST", restUrl).getTickets(releases);
+            fail("the failure of page 300 should be reported");
+        } catch (IOException e) {
+            assertEquals(3, requests.get(300).get());
+            // attese di 10 e 20 ms prima del secondo e del terzo tentativo
+            assertTrue((System.nanoTime() - start) / 1_000_000 >= 30);
+        }
+    }
+
+    public void testMissingPageIsNotRetried() throws IOException {
+        missingPages.put(200, true);
+
+        try {
+            new JiraDataExtractor("TEST", restUrl).getTickets(releases);
+            fail("the missing page should be reported");
+        } catch (FileNotFoundException e) {
+            assertEquals(1, requests.get(200).get());
+        }
+    }
+
+    public void testShortPageReplansTheFollowingPages() throws IOException {
+        shortPages.put(200, 40);
+
+        List<Ticket> tickets = new JiraDataExtractor("TEST", restUrl).getTickets(releases);
+
+        assertKeysInOrder(tickets);
+        // le pagine successive vengono richieste di nuovo a partire dalla fine di quella corta
+        assertNotNull(requests.get(240));
+        assertEquals(1, requests.get(240).get());
+    }
+
+    public void testSequentialFetchGivesTheSameTickets() throws IOException {
+        JiraUtils.setPageFetcher(new JiraPageFetcher(1, 3, 10));
+
+        List<Ticket> tickets = new JiraDataExtractor("TEST", restUrl).getTickets(releases);
+
+        assertKeysInOrder(tickets);
+        assertEquals(1, maxInFlight.get());
+    }
+
+    // Tutti i ticket hanno la stessa data di risoluzione: l'ordinamento stabile conserva l'ordine delle pagine
+    private static void assertKeysInOrder(List<Ticket> tickets) {
+        assertEquals(TOTAL, tickets.size());
+        for (int i = 0; i < TOTAL; i++) {
+            assertEquals("TEST-" + i, tickets.get(i).getTicketID());
+        }
+    }
+
+    private static String page(int startAt, int count) {
+        JSONArray issues = new JSONArray();
+        for (int i = startAt; i < startAt + count; i++) {
+            JSONObject fields = new JSONObject()
+                    .put("created", "2010-06-01T10:00:00.000+0000")
+                    .put("resolutiondate", "2010-09-01T10:00:00.000+0000")
+                    .put("versions", new JSONArray());
+            issues.put(new JSONObject().put("key", "TEST-" + i).put("fields", fields));
+        }
+        return new JSONObject().put("startAt", startAt).put("maxResults", PAGE_SIZE).put("total", TOTAL)
+                .put("issues", issues).toString();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package utils;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import junit.framework.TestCase;
+import model.SourceMethod;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Checks the methods found by the lexical scanner against the JavaParser fallback: signatures (and so
+ * the FQNs, which are the file path plus the signature), ranges, body fingerprints and LOC must match.
+ * When the scanner gives up (null) the result is JavaParser's by construction.
+ */
+public class JavaMethodScannerTest extends TestCase {
+
+    public void testGenerics() {
+        assertScannedLikeJavaParser(source(
+                "package p;",
+                "import java.util.*;",
+                "public class Generics<E extends Comparable<? super E>> {",
+                "    private Map<String, List<Map<Integer, String>>> nested = new HashMap<>();",
+                "    public <T extends Comparable<? super T>> List<T> sort(List<? extends T> in, T... extra) {",
+                "        List<T> out = new ArrayList<>(in);",
+                "        if (out.size() >> 1 > 0 && extra.length >>> 1 >= 0) { Collections.sort(out); }",
+                "        return out;",
+                "    }",
+                "    Map<String, List<int[]>> arrays(Map<String, List<int[]>> a, int[][] b, String[]... c) {",
+                "        return a;",
+                "    }",
+                "    static <K, V extends List<K>> void put(java.util.Map<K, V> map, Class<?> type) {",
+                "        List<List<List<String>>> deep = null;",
+                "    }",
+                "    void overloaded(int a) { }",
+                "    void overloaded(long a) { }",
+                "    void overloaded(List<String> a, Set<? extends Number> b) { }",
+                "    Generics() { }",
+                "}"));
+    }
+
+    public void testAnnotations() {
+        assertScannedLikeJavaParser(source(
+                "package p;",
+                "@Deprecated",
+                "@SuppressWarnings({\"unchecked\", \"rawtypes\"})",
+                "public class Annotated {",
+                "    @Override",
+                "    public String toString() { return \"{\"; }",
+                "    @SuppressWarnings(value = {\"a\", \"}\"})",
+                "    @Deprecated",
+                "    protected final synchronized void annotatedParameters(@Deprecated final int x,",
+                "                                                         @SuppressWarnings(\"y\") String y) {",
+                "        @SuppressWarnings(\"unused\") int local = x;",
+                "    }",
+                "}"));
+    }
+
+    public void testLambdasAndMethodReferences() {
+        assertScannedLikeJavaParser(source(
+                "package p;",
+                "import java.util.*;",
+                "import java.util.function.*;",
+                "public class Lambdas {",
+                "    private final Comparator<String> byLength = (a, b) -> { return a.length() - b.length(); };",
+                "    private final Function<Integer, String> toText = String::valueOf;",
+                "    void forEach(List<Boolean> list) {",
+                "        list.forEach(x -> { if (x) { run(() -> {}); } });",
+                "        Runnable r = () -> { for (int i = 0; i < 3; i++) { } };",
+                "        Supplier<List<String>> s = ArrayList::new;",
+                "    }",
+                "    void run(Runnable r) { r.run(); }",
+                "}"));
+    }
+
+    public void testNestedAndInnerClasses() {
+        assertScannedLikeJavaParser(source(
+                "package p;",
+                "public class Outer {",
+                "    void m() { }",
+                "    static class Nested {",
+                "        void m() { int x = 1; }",
+                "        void nestedOnly(String s) { }",
+                "    }",
+                "    class Inner {",
+                "        private class Deeper { long deep(int[] a) { return a.length; } }",
+                "    }",
+                "    interface Api {",
+                "        void abstractMethod(String s);",
+                "        default int defaultMethod() { return 1; }",
+                "        static Api create() { return null; }",
+                "    }",
+                "}",
+                "class Second { void second() { } }"));
+    }
+
+    public void testCommentsAndStrings() {
+        assertScannedLikeJavaParser(source(
+                "package p;",
+                "/** Javadoc with {@code braces} and void fake() { */",
+                "public class Text {",
+                "    // void commented() {",
+                "    /* } } class Fake { void fake() { } */",
+                "    String s() { return \"void s2() { \\\" }\" + '{' + '}' + '\"' + '\\''; }",
+                "    char c() { return '\\\\'; } // }",
+                "    String concat(String a) {",
+                "        String url = \"http://example.org/*not a comment*/\";",
+                "        return a + \"}\" + url; /* { */",
+                "    }",
+                "}"));
+    }
+
+    public void testSwitchStatements() {
+        assertScannedLikeJavaParser(source(
+                "package p;",
+                "public class Switches {",
+                "    int classic(int day) {",
+                "        switch (day) {",
+                "            case 1: { return 10; }",
+                "            case 2:",
+                "            case 3: return 20;",
+                "            default: break;",
+                "        }",
+                "        return 0;",
+                "    }",
+                "    String onStrings(String s) {",
+                "        switch (s) { case \"{\": return \"open\"; default: return \"}\"; }",
+                "    }",
+                "}"));
+    }
+
+    public void testSwitchRules() {
+        assertScannedLikeJavaParser(source(
+                "package p;",
+                "public class SwitchRules {",
+                "    void arrows(int day, boolean weekend) {",
+                "        switch (day) {",
+                "            case 1 -> run(day > 0 ? 1 : 2);",
+                "            case 2 -> { int x = day * 2; run(x); }",
+                "            default -> throw new IllegalArgumentException(\"{\");",
+                "        }",
+                "        if (weekend) switch (day) { default: break; }",
+                "        do switch (day) { case 3: run(3); } while (false);",
+                "        label: switch (day) { case 4: break label; }",
+                "    }",
+                "    void run(int x) { }",
+                "}"));
+    }
+
+    public void testSyntaxAfterJava11FallsBackOnJavaParser() {
+        String[] sources = {
+                "class A { int m(int d) { return switch (d) { case 1 -> 0; default -> 1; }; } }",
+                "class A { int m(int d) { int x = d > 0 ? 1 : switch (d) { default -> 2; }; return x; } }",
+                "class A { void m(int d) { java.util.function.IntSupplier s = () -> switch (d) { default -> 2; }; } }",
+                "class A { int f = switch (1) { default -> 2; }; }",
+                "class A { int m(int d) { switch (d) { case 1, 7: return 0; default: return 1; } } }",
+                "class A { int m(Object o) { if (o instanceof String s) return s.length(); return 0; } }",
+                "class A { int m(Object o) { return o instanceof final java.util.List<?> l ? l.size() : 0; } }",
+                "sealed class A permits B { void m() { } } final class B extends A { }",
+                "abstract sealed class A { void m() { } }"
+        };
+        for (String source : sources) {
+            assertNull(source, JavaMethodScanner.scan(source));
+            try {
+                JavaParsers.parse(source);
+                fail("the fallback parser should reject " + source);
+            } catch (ParseProblemException e) {
+                // come in produzione: il file non ha metodi né per lo scanner né per il fallback
+            }
+        }
+    }
+
+    public void testAnonymousClassesFallBackOnJavaParser() {
+        String source = source(
+                "package p;",
+                "public class Anonymous {",
+                "    Runnable make() {",
+                "        return new Runnable() {",
+                "            public void run() { }",
+                "        };",
+                "    }",
+                "}");
+        assertNull(JavaMethodScanner.scan(source));
+        assertEquals(describe(javaParserMethods(source)).keySet().toString(), "[make(), run()]");
+    }
+
+    public void testEnumsFallBackOnJavaParser() {
+        assertNull(JavaMethodScanner.scan(source(
+                "package p;",
+                "public enum Color {",
+                "    RED { int code() { return 1; } }, GREEN;",
+                "    int code() { return 0; }",
+                "}")));
+    }
+
+    public void testAnnotationTypesFallBackOnJavaParser() {
+        assertNull(JavaMethodScanner.scan(source(
+                "package p;",
+                "public class WithMarker {",
+                "    void m() { }",
+                "    public @interface Marker { String value() default \"{\"; }",
+                "}")));
+    }
+
+    private static void assertScannedLikeJavaParser(String source) {
+        Map<String, SourceMethod> scanned = JavaMethodScanner.scan(source);
+        assertNotNull("the scanner should handle this source", scanned);
+        Map<String, SourceMethod> parsed = javaParserMethods(source);
+        assertFalse(parsed.isEmpty());
+        assertEquals(describe(parsed), describe(scanned));
+    }
+
+    // Stessa estrazione del fallback di GitDataExtractor.parseMethods
+    private static Map<String, SourceMethod> javaParserMethods(String source) {
+        Map<String, SourceMethod> methods = new TreeMap<>();
+        for (MethodDeclaration md : JavaParsers.parse(source).findAll(MethodDeclaration.class)) {
+            String signature = SourceMethod.getSignature(md);
+            methods.put(signature, new SourceMethod(signature, md.getRange().orElse(null),
+                    MethodFingerprint.of(md), MethodMetricsVisitor.countLinesOfCode(md)));
+        }
+        return methods;
+    }
+
+    private static Map<String, String> describe(Map<String, SourceMethod> methods) {
+        Map<String, String> description = new TreeMap<>();
+        for (SourceMethod method : methods.values()) {
+            description.put(method.getSignature(), method.getRange() + " hash=" + method.getBodyHash() + " loc=" + method.getLoc());
+        }
+        return description;
+    }
+
+    private static String source(String... lines) {
+        return String.join("\n", lines) + "\n";
+    }
+}
@@ -0,0 +1,240 @@
+package utils;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.InstanceOfExpr;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import junit.framework.TestCase;
+import model.MethodMetrics;
+import model.SourceMethod;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks {@link MethodMetricsVisitor} against the per-metric helpers it replaced, kept here as the
+ * reference (one findAll per metric, a separate nesting visitor, LOC from the pretty-printed body),
+ * on the methods of this project's sources. Branches, nesting depth, locals and smells must match;
+ * LOC is expected to differ, since it now follows the source layout. The single traversal must also
+ * be faster than the helpers, timed on the same parsed methods after a warm-up.
+ */
+public class MethodMetricsVisitorTest extends TestCase {
+
+    private static final String SOURCES = "src/main/java";
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private List<MethodDeclaration> methods;
+
+    @Override
+    protected void setUp() throws IOException {
+        methods = new ArrayList<>();
+        for (Path file : javaFiles(Paths.get(SOURCES))) {
+            String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            methods.addAll(JavaParsers.parse(source).findAll(MethodDeclaration.class));
+        }
+        assertFalse(methods.isEmpty());
+    }
+
+    public void testMetricsMatchTheReplacedHelpers() {
+        int locDifferences = 0;
+        int locDelta = 0;
+        for (MethodDeclaration md : methods) {
+            MethodMetrics current = MethodMetricsVisitor.measure(md);
+            String method = SourceMethod.getSignature(md) + " at " + md.getRange().orElse(null);
+            int branches = oldNumBranches(md);
+            int depth = oldNestingDepth(md);
+            assertEquals(method, branches, current.getNumBranches());
+            assertEquals(method, depth, current.getNestingDepth());
+            assertEquals(method, oldNumLocalVariables(md), current.getNumLocalVariables());
+            // Smells computed with the new LOC, so that they only reflect the other counters
+            assertEquals(method, oldCodeSmells(md, branches + 1, current.getLoc(), depth, md.getParameters().size()),
+                    current.getNumCodeSmells());
+            int oldLoc = oldLoc(md);
+            if (oldLoc != current.getLoc()) {
+                locDifferences++;
+                locDelta += Math.abs(oldLoc - current.getLoc());
+            }
+        }
+        PrintUtils.Console.info(String.format(Locale.ROOT, "%d methods, LOC differs on %d (%.1f lines on average)",
+                methods.size(), locDifferences, locDifferences == 0 ? 0.0 : (double) locDelta / locDifferences));
+    }
+
+    public void testSingleTraversalIsFasterThanTheReplacedHelpers() {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            timeVisitor(methods);
+            timeOldHelpers(methods);
+        }
+        long visitorNanos = 0;
+        long oldNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            visitorNanos += timeVisitor(methods);
+            oldNanos += timeOldHelpers(methods);
+        }
+        double runs = (double) MEASURED_ROUNDS * methods.size();
+        PrintUtils.Console.info(String.format(Locale.ROOT, "Per method: visitor %.1f us, replaced helpers %.1f us",
+                visitorNanos / runs / 1000, oldNanos / runs / 1000));
+        assertTrue(visitorNanos < oldNanos);
+    }
+
+    private static List<Path> javaFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(f -> f.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static long timeVisitor(List<MethodDeclaration> methods) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (MethodDeclaration md : methods) {
+            MethodMetrics metrics = MethodMetricsVisitor.measure(md);
+            sink += metrics.getLoc() + metrics.getNumCodeSmells();
+        }
+        long elapsed = System.nanoTime() - start;
+        return sink == Long.MIN_VALUE ? 0 : elapsed;
+    }
+
+    private static long timeOldHelpers(List<MethodDeclaration> methods) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (MethodDeclaration md : methods) {
+            int loc = oldLoc(md);
+            int branches = oldNumBranches(md);
+            int depth = oldNestingDepth(md);
+            sink += oldNumLocalVariables(md) + oldCodeSmells(md, branches + 1, loc, depth, md.getParameters().size());
+        }
+        long elapsed = System.nanoTime() - start;
+        return sink == Long.MIN_VALUE ? 0 : elapsed;
+    }
+
+    // --- Helpers replaced by MethodMetricsVisitor ---
+
+    private static int oldLoc(MethodDeclaration md) {
+        if (!md.getBody().isPresent()) return 0;
+        String[] lines = md.getBody().get().toString().split("\r\n|\r|\n");
+        boolean inMultiLineComment = false;
+        int locCount = 0;
+        for (String line : lines) {
+            String trimmedLine = line.trim();
+            if (trimmedLine.startsWith("/*")) {
+                inMultiLineComment = !(trimmedLine.endsWith("*/") && trimmedLine.length() > 2);
+                continue;
+            }
+            if (trimmedLine.endsWith("*/")) {
+                inMultiLineComment = false;
+                continue;
+            }
+            if (inMultiLineComment) continue;
+            if (!trimmedLine.isEmpty() && !trimmedLine.startsWith("//")
+                    && !(trimmedLine.equals("{") || trimmedLine.equals("}"))) {
+                locCount++;
+            }
+        }
+        return locCount;
+    }
+
+    private static int oldNumBranches(MethodDeclaration md) {
+        if (!md.getBody().isPresent()) return 0;
+        int branches = 0;
+        branches += md.findAll(IfStmt.class).size();
+        branches += md.findAll(ConditionalExpr.class).size();
+        branches += md.findAll(ForStmt.class).size();
+        branches += md.findAll(ForEachStmt.class).size();
+        branches += md.findAll(WhileStmt.class).size();
+        branches += md.findAll(DoStmt.class).size();
+        for (SwitchStmt switchStmt : md.findAll(SwitchStmt.class)) {
+            branches += switchStmt.getEntries().size();
+        }
+        branches += md.findAll(CatchClause.class).size();
+        return branches;
+    }
+
+    private static int oldNestingDepth(MethodDeclaration md) {
+        if (!md.getBody().isPresent()) return 0;
+        NestingDepthVisitor nestingVisitor = new NestingDepthVisitor();
+        md.getBody().get().accept(nestingVisitor, null);
+        return nestingVisitor.maxDepth;
+    }
+
+    private static int oldNumLocalVariables(MethodDeclaration md) {
+        if (!md.getBody().isPresent()) return 0;
+        return md.getBody().get().findAll(VariableDeclarator.class).size();
+    }
+
+    private static int oldCodeSmells(MethodDeclaration md, int cyclomaticComplexity, int loc, int nestingDepth, int numParameters) {
+        if (!md.getBody().isPresent()) return 0;
+        int smellCount = 0;
+        BlockStmt body = md.getBody().get();
+
+        if (cyclomaticComplexity > 7) smellCount++;
+        if (loc > 30) smellCount++;
+        if (nestingDepth > 4) smellCount++;
+        if (numParameters > 5) smellCount++;
+
+        for (SwitchStmt switchStmt : body.findAll(SwitchStmt.class)) {
+            if (switchStmt.getEntries().stream().noneMatch(entry -> entry.getLabels().isEmpty())) {
+                smellCount++;
+            }
+        }
+        for (CatchClause catchClause : body.findAll(CatchClause.class)) {
+            if (catchClause.getBody().getStatements().isEmpty()) {
+                smellCount++;
+            }
+        }
+        if (body.findAll(InstanceOfExpr.class).size() > 2) {
+            smellCount++;
+        }
+        String methodName = md.getNameAsString();
+        if ((methodName.equals("equals") || methodName.equals("hashCode") || methodName.equals("toString"))
+                && md.getAnnotations().stream().noneMatch(a -> a.getNameAsString().equals("Override"))) {
+            smellCount++;
+        }
+        long magicNumberCount = body.findAll(IntegerLiteralExpr.class).stream()
+                .filter(n -> { try { int val = n.asInt(); return val != 0 && val != 1 && val != -1; } catch (Exception e) { return true; } })
+                .filter(n -> n.getParentNode().map(p -> !(p instanceof VariableDeclarator)).orElse(true))
+                .count();
+        if (magicNumberCount > 1) {
+            smellCount++;
+        }
+        return smellCount;
+    }
+
+    private static final class NestingDepthVisitor extends VoidVisitorAdapter<Void> {
+        private int currentDepth;
+        private int maxDepth;
+
+        private void enterNode() {
+            currentDepth++;
+            if (currentDepth > maxDepth) {
+                maxDepth = currentDepth;
+            }
+        }
+
+        private void exitNode() {
+            currentDepth--;
+        }
+
+        @Override public void visit(IfStmt n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+        @Override public void visit(ForStmt n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+        @Override public void visit(ForEachStmt n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+        @Override public void visit(WhileStmt n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+        @Override public void visit(DoStmt n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+        @Override public void visit(SwitchStmt n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+        @Override public void visit(TryStmt n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+        @Override public void visit(ConditionalExpr n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+        @Override public void visit(LambdaExpr n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+        @Override public void visit(CatchClause n, Void arg) { enterNode(); super.visit(n, arg); exitNode(); }
+    }
+}